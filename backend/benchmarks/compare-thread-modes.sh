@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Runs the /api/products load against the backend twice, on platform threads and on virtual threads,
+# and appends one JSON result line per mode to results/thread-modes.jsonl.
+#
+# Needs: a reachable Postgres (the datasource settings in application.properties), the backend built with
+#   ./mvnw -Pvirtual-threads package -DskipTests   (Java 21 toolchain)
+# and JAVA21_HOME pointing at a JDK 21.
+set -euo pipefail
+
+cd "$(dirname "$0")"
+JAVA="${JAVA21_HOME:?set JAVA21_HOME to a JDK 21}/bin/java"
+APP_JAR=../target/app-1.0.0-exec.jar
+CLIENTS="${CLIENTS:-200}"
+DURATION="${DURATION:-30}"
+PORT=18080
+# A throwaway signing key unless one is given; each run logs in again, so it may change between runs
+export JWT_SECRET="${JWT_SECRET:-$(head -c 48 /dev/urandom | base64)}"
+mkdir -p results
+
+run_mode() {
+  local label=$1; shift
+  "$JAVA" -Djdk.tracePinnedThreads=short -jar "$APP_JAR" --server.port=$PORT "$@" > "target/$label.log" 2>&1 &
+  local pid=$!
+  trap 'kill $pid 2>/dev/null || true' EXIT
+  until curl -s -o /dev/null "http://localhost:$PORT/api/auth/login"; do sleep 1; done
+  "$JAVA" -cp target/benchmarks.jar com.fdabrao.app.benchmark.load.ProductListLoadGenerator \
+      --url=http://localhost:$PORT --clients="$CLIENTS" --duration="$DURATION" --label="$label" \
+      | tee -a results/thread-modes.jsonl
+  kill $pid
+  wait $pid 2>/dev/null || true
+  trap - EXIT
+}
+
+run_mode platform-threads
+run_mode virtual-threads --spring.threads.virtual.enabled=true
+grep -c "Virtual thread pinned\|VirtualThreadPinned" target/virtual-threads.log || true
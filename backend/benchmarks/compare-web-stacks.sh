@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# Runs the /api/products load against the servlet stack (Spring MVC on Tomcat, JPA) and the reactive stack
+# (the reactive profile: WebFlux on Netty, R2DBC) at increasing numbers of concurrent connections, and appends
+# one JSON result line per stack and client count to results/web-stacks.jsonl. Each line is followed by the
+# server's live thread count at the end of that run.
+#
+# Needs: a reachable Postgres (the datasource settings in application.properties) with a user to log in as
+# (USERNAME/PASSWORD, default admin/admin), and the backend built with ./mvnw package -DskipTests
+set -euo pipefail
+
+cd "$(dirname "$0")"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+APP_JAR=../target/app-1.0.0-exec.jar
+CLIENT_COUNTS="${CLIENT_COUNTS:-100 1000 4000}"
+DURATION="${DURATION:-30}"
+USERNAME="${USERNAME:-admin}"
+PASSWORD="${PASSWORD:-admin}"
+PORT=18080
+# A throwaway signing key unless one is given; each run logs in again, so it may change between runs
+export JWT_SECRET="${JWT_SECRET:-$(head -c 48 /dev/urandom | base64)}"
+mkdir -p results
+
+live_threads() {
+  local token
+  token=$(curl -s -H 'Content-Type: application/json' \
+      -d "{\"username\":\"$USERNAME\",\"password\":\"$PASSWORD\"}" "http://localhost:$PORT/api/auth/login" \
+      | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')
+  curl -s -H "Authorization: Bearer $token" "http://localhost:$PORT/actuator/metrics/jvm.threads.live" \
+      | sed -n 's/.*"value":\([0-9.]*\).*/\1/p'
+}
+
+run_stack() {
+  local label=$1; shift
+  "$JAVA" -jar "$APP_JAR" --server.port=$PORT "$@" > "target/$label.log" 2>&1 &
+  local pid=$!
+  trap 'kill $pid 2>/dev/null || true' EXIT
+  until curl -s -o /dev/null "http://localhost:$PORT/actuator/health"; do sleep 1; done
+  for clients in $CLIENT_COUNTS; do
+    "$JAVA" -cp target/benchmarks.jar com.fdabrao.app.benchmark.load.ProductListLoadGenerator \
+        --url=http://localhost:$PORT --clients="$clients" --duration="$DURATION" --label="$label" \
+        --username="$USERNAME" --password="$PASSWORD" \
+        | tee -a results/web-stacks.jsonl
+    echo "{\"label\":\"$label\",\"clients\":$clients,\"serverLiveThreads\":$(live_threads)}" \
+        | tee -a results/web-stacks.jsonl
+  done
+  kill $pid
+  wait $pid 2>/dev/null || true
+  trap - EXIT
+}
+
+run_stack servlet
+run_stack reactive --spring.profiles.active=reactive
@@ -0,0 +1,17 @@
+#!/usr/bin/env bash
+# Runs the per-request hot path benchmarks, writes results/latest.json and compares it with the
+# committed results/baseline.json. Pass --update-baseline to replace the baseline with this run.
+set -euo pipefail
+
+cd "$(dirname "$0")"
+HOT_PATHS='JwtTokenBenchmark|JwtAuthenticationFilterBenchmark|ProductSerializationBenchmark|RestExceptionHandlerBenchmark'
+mkdir -p results
+
+java -jar target/benchmarks.jar "$HOT_PATHS" -rf json -rff results/latest.json
+
+if [[ "${1:-}" == "--update-baseline" ]]; then
+  cp results/latest.json results/baseline.json
+else
+  java -cp target/benchmarks.jar com.fdabrao.app.benchmark.CompareResults \
+      results/baseline.json results/latest.json "${MAX_REGRESSION_PERCENT:-10}"
+fi
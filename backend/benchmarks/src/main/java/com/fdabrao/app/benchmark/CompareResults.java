@@ -0,0 +1,72 @@
+package com.fdabrao.app.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files and fails when a benchmark got slower than the threshold.
+ * Scores are matched by benchmark name and parameters; lower is better for time modes, higher for throughput.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.fdabrao.app.benchmark.CompareResults results/baseline.json results/latest.json 10
+ * </pre>
+ */
+public final class CompareResults {
+
+    private CompareResults() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareResults <baseline.json> <latest.json> [max regression %]");
+            System.exit(2);
+        }
+        double maxRegression = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(objectMapper.readTree(new File(args[0])));
+        Map<String, JsonNode> latest = index(objectMapper.readTree(new File(args[1])));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : latest.entrySet()) {
+            JsonNode current = entry.getValue();
+            JsonNode previous = baseline.get(entry.getKey());
+            double score = current.at("/primaryMetric/score").asDouble();
+            String unit = current.at("/primaryMetric/scoreUnit").asText();
+            if (previous == null) {
+                System.out.printf(Locale.ROOT, "%-80s %12.3f %-8s (new)%n", entry.getKey(), score, unit);
+                continue;
+            }
+            double before = previous.at("/primaryMetric/score").asDouble();
+            boolean higherIsBetter = "thrpt".equals(current.path("mode").asText());
+            double change = (score - before) / before * 100;
+            double regression = higherIsBetter ? -change : change;
+            boolean failed = regression > maxRegression;
+            regressions += failed ? 1 : 0;
+            System.out.printf(Locale.ROOT, "%-80s %12.3f %-8s %+7.1f%%%s%n",
+                    entry.getKey(), score, unit, change, failed ? "  REGRESSION" : "");
+        }
+        if (regressions > 0) {
+            System.out.printf(Locale.ROOT, "%d benchmark(s) regressed by more than %.0f%%%n", regressions, maxRegression);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                    .replace("com.fdabrao.app.benchmark.", ""));
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            byKey.put(key.toString(), result);
+        }
+        return byKey;
+    }
+}
@@ -0,0 +1,67 @@
+package com.fdabrao.app.benchmark;
+
+import com.fdabrao.app.security.CustomUserDetailsService;
+import com.fdabrao.app.security.JwtAuthenticationFilter;
+import com.fdabrao.app.security.JwtTokenUtil;
+import com.fdabrao.app.security.UserDenylist;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * One pass of an authenticated request through JwtAuthenticationFilter: header parsing, claims lookup,
+ * denylist check and building the security context. Tokens carry the id and roles claims, so the
+ * user details service (and its repository) is never reached. Includes the cost of the mock request
+ * and of recording the phase timers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "benchmark-jwt-secret-benchmark-jwt-secret-benchmark-jwt-secret-0123";
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(SECRET, 10_000);
+        filter = new JwtAuthenticationFilter(
+                jwtTokenUtil, new CustomUserDetailsService(null), new UserDenylist(null, null), new SimpleMeterRegistry());
+        authorization = "Bearer " + jwtTokenUtil.generateToken(
+                new User("user_test", "", List.of(new SimpleGrantedAuthority("ROLE_USER"))), 42L);
+    }
+
+    @Benchmark
+    public Object authenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader("Authorization", authorization);
+        MockFilterChain chain = new MockFilterChain();
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
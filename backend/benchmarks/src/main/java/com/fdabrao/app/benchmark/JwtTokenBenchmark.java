@@ -0,0 +1,123 @@
+package com.fdabrao.app.benchmark;
+
+import com.fdabrao.app.security.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Per-request cost of authenticating a bearer token, as done by JwtAuthenticationFilter.
+ * <ul>
+ *   <li>{@code rebuildParserThreeTimes}: the previous behaviour, three full parses each with a new parser</li>
+ *   <li>{@code sharedParserOnce}: a cache miss, one parse with the shared parser</li>
+ *   <li>{@code cachedFilterPath}: the filter's calls against JwtTokenUtil with a warm cache</li>
+ *   <li>{@code generateToken}: issuing a token at login, with the roles and user id claims</li>
+ *   <li>{@code validateTokenUncached}: {@code validateToken} when every call has to verify the signature</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenBenchmark {
+
+    private static final String SECRET = "benchmark-jwt-secret-benchmark-jwt-secret-benchmark-jwt-secret-0123";
+
+    private Key key;
+    private String rawToken;
+
+    private JwtTokenUtil jwtTokenUtil;
+    private UserDetails userDetails;
+    private String token;
+
+    private JwtTokenUtil uncachedJwtTokenUtil;
+    private String[] uncachedTokens;
+    private int nextUncachedToken;
+
+    @Setup
+    public void setUp() {
+        key = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+        rawToken = Jwts.builder()
+                .setSubject("user_test")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)))
+                .signWith(key)
+                .compact();
+
+        jwtTokenUtil = new JwtTokenUtil(SECRET, 10_000);
+        userDetails = new User("user_test", "password", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        token = jwtTokenUtil.generateToken(userDetails);
+
+        // Cycling through many distinct tokens with a one-entry cache makes every validation a miss
+        uncachedJwtTokenUtil = new JwtTokenUtil(SECRET, 1);
+        uncachedTokens = new String[1024];
+        for (int i = 0; i < uncachedTokens.length; i++) {
+            uncachedTokens[i] = uncachedJwtTokenUtil.generateToken(userDetails, (long) i);
+        }
+    }
+
+    @Benchmark
+    public void rebuildParserThreeTimes(Blackhole blackhole) {
+        for (int i = 0; i < 3; i++) {
+            Claims claims = Jwts.parserBuilder()
+                    .setSigningKey(key)
+                    .build()
+                    .parseClaimsJws(rawToken)
+                    .getBody();
+            blackhole.consume(claims);
+        }
+    }
+
+    @Benchmark
+    public Claims sharedParserOnce(ParserState state) {
+        return state.parser.parseClaimsJws(rawToken).getBody();
+    }
+
+    @Benchmark
+    public boolean cachedFilterPath(Blackhole blackhole) {
+        blackhole.consume(jwtTokenUtil.getUsernameFromToken(token));
+        return jwtTokenUtil.validateToken(token, userDetails);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtTokenUtil.generateToken(userDetails, 42L);
+    }
+
+    @Benchmark
+    public boolean validateTokenUncached() {
+        String uncachedToken = uncachedTokens[nextUncachedToken++ & (uncachedTokens.length - 1)];
+        return uncachedJwtTokenUtil.validateToken(uncachedToken, userDetails);
+    }
+
+    @State(Scope.Benchmark)
+    public static class ParserState {
+        io.jsonwebtoken.JwtParser parser;
+
+        @Setup
+        public void setUp(JwtTokenBenchmark benchmark) {
+            parser = Jwts.parserBuilder().setSigningKey(benchmark.key).build();
+        }
+    }
+}
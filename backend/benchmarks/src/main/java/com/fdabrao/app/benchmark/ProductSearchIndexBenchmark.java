@@ -0,0 +1,81 @@
+package com.fdabrao.app.benchmark;
+
+import com.fdabrao.app.catalog.CatalogChangeEvent;
+import com.fdabrao.app.catalog.CatalogChangeEvent.ChangeType;
+import com.fdabrao.app.catalog.CatalogChangeEvent.EntityType;
+import com.fdabrao.app.catalog.ProductSearchHit;
+import com.fdabrao.app.catalog.ProductSearchIndex;
+import com.fdabrao.app.model.Product;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Query latency of the in-memory product search index over a synthetic catalog.
+ * Products are fed through the change-event path, as committed writes would be.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ProductSearchIndexBenchmark {
+
+    private static final String[] ADJECTIVES = {
+        "organic", "fresh", "frozen", "smoked", "roasted", "spicy", "sweet", "salted", "wild", "aged"
+    };
+    private static final String[] NOUNS = {
+        "apples", "bananas", "carrots", "broccoli", "milk", "cheddar", "sourdough", "croissant",
+        "ribeye", "salmon", "chicken", "yogurt", "butter", "spinach", "tomatoes", "almonds"
+    };
+
+    @Param({"100000", "1000000"})
+    private int catalogSize;
+
+    private ProductSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new ProductSearchIndex(null, null, null, null);
+        Random random = new Random(42);
+        for (long id = 1; id <= catalogSize; id++) {
+            String name = pick(random, ADJECTIVES) + " " + pick(random, NOUNS) + " " + id;
+            String description = pick(random, ADJECTIVES) + " " + pick(random, NOUNS)
+                    + ", pack of " + (1 + random.nextInt(12));
+            Product product = new Product(id, name, description, 100 + random.nextInt(5000), true, null);
+            index.onCatalogChange(new CatalogChangeEvent(EntityType.PRODUCT, id, ChangeType.CREATED, product));
+        }
+    }
+
+    @Benchmark
+    public List<ProductSearchHit> rareExactTerm() {
+        return index.search("777777", 20);
+    }
+
+    @Benchmark
+    public List<ProductSearchHit> twoCommonTerms() {
+        return index.search("smoked salmon", 20);
+    }
+
+    @Benchmark
+    public List<ProductSearchHit> commonPrefix() {
+        return index.search("croi", 20);
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,68 @@
+package com.fdabrao.app.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.model.ProductSummary;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Response body serialization for product lists, with the ObjectMapper defaults Spring MVC uses.
+ * {@code products} writes entities with their nested category (single product responses, export);
+ * {@code summaries} writes the flat rows returned by the list endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductSerializationBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Product> products;
+    private List<ProductSummary> summaries;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        Categories category = new Categories(7L, "Bakery", "Fresh baked goods", null, true);
+        products = new ArrayList<>(size);
+        summaries = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            Product product = new Product(
+                    id, "Product " + id, "Description of product " + id, 199 + id * 100, id % 3 != 0, category);
+            products.add(product);
+            summaries.add(new ProductSummary(
+                    id, product.getName(), product.getDescription(), product.getPrice(),
+                    product.getAvailable(), category.getId(), category.getName()));
+        }
+    }
+
+    @Benchmark
+    public byte[] products() throws Exception {
+        return objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] summaries() throws Exception {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+}
@@ -0,0 +1,56 @@
+package com.fdabrao.app.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fdabrao.app.exception.RestExceptionHandler;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Cost of answering a failed request: building the error body in RestExceptionHandler and writing it as JSON.
+ * The exception is created per call, as controllers do, so its stack trace capture is included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestExceptionHandlerBenchmark {
+
+    private RestExceptionHandler handler;
+    private ServletWebRequest request;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        handler = new RestExceptionHandler();
+        request = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/products/42"));
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> errorBody() {
+        return handler.handleResponseStatusException(
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"), request);
+    }
+
+    @Benchmark
+    public byte[] errorBodyAsJson() throws Exception {
+        return objectMapper.writeValueAsBytes(errorBody().getBody());
+    }
+}
@@ -0,0 +1,78 @@
+package com.fdabrao.app.benchmark.load;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Measures the bytes each request allocates on its servlet thread and sums them per endpoint, keyed as
+ * {@code "<method> <mapping pattern>"}. Work handed to other threads (password hashing, async flushes) is
+ * not attributed. Runs only between {@link #start()} and {@link #stop()} so warm-up traffic is left out.
+ */
+final class AllocationRecordingFilter implements Filter {
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Map<String, Totals> totals = new ConcurrentHashMap<>();
+    private volatile boolean recording;
+
+    record Allocation(long requests, long bytes) {}
+
+    private static final class Totals {
+        final LongAdder requests = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+    }
+
+    void start() {
+        totals.clear();
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+    }
+
+    Map<String, Allocation> snapshot() {
+        Map<String, Allocation> snapshot = new TreeMap<>();
+        totals.forEach((endpoint, sum) ->
+                snapshot.put(endpoint, new Allocation(sum.requests.sum(), sum.bytes.sum())));
+        return snapshot;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!recording) {
+            chain.doFilter(request, response);
+            return;
+        }
+        // -1 where the JVM cannot measure the current thread (e.g. virtual threads on some releases)
+        long before = threads.getCurrentThreadAllocatedBytes();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long after = threads.getCurrentThreadAllocatedBytes();
+            if (before >= 0 && after >= 0) {
+                Totals sum = totals.computeIfAbsent(endpoint((HttpServletRequest) request), key -> new Totals());
+                sum.requests.increment();
+                sum.bytes.add(after - before);
+            }
+        }
+    }
+
+    // The matched handler pattern groups /api/products/1 and /api/products/2 together
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : "(unmatched)");
+    }
+}
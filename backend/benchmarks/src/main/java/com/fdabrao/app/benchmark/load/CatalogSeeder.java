@@ -0,0 +1,165 @@
+package com.fdabrao.app.benchmark.load;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import javax.sql.DataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Fills an empty schema with a deterministic catalog: a two-level category tree, products whose names and
+ * descriptions mix common and rare words (so search sees both wide and narrow postings) and login users.
+ * The same seed always produces the same rows.
+ */
+final class CatalogSeeder {
+
+    static final String USER_PASSWORD = "load-password";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String[] ADJECTIVES = {
+        "organic", "fresh", "smoked", "roasted", "frozen", "spicy", "sweet", "classic", "wholegrain", "premium",
+        "light", "crunchy", "creamy", "wild", "aged", "baked", "salted", "golden", "rustic", "tangy"
+    };
+    private static final String[] NOUNS = {
+        "coffee", "tea", "bread", "cheese", "yogurt", "honey", "pasta", "rice", "chocolate", "almonds",
+        "salmon", "chicken", "tomatoes", "olives", "granola", "butter", "cookies", "juice", "noodles", "beans",
+        "oats", "pepper", "vinegar", "crackers", "sauce", "mustard", "lentils", "walnuts", "apples", "jam"
+    };
+    private static final String[] SYLLABLES = {
+        "ka", "lo", "mi", "ver", "tan", "sol", "ri", "ba", "nor", "el", "qu", "ash", "po", "ten", "di", "mor"
+    };
+
+    private final SplittableRandom random;
+    private final String[] vocabulary;
+
+    CatalogSeeder(long seed) {
+        this.random = new SplittableRandom(seed);
+        // A few hundred made-up words for descriptions; their frequencies follow the pick order below
+        this.vocabulary = new String[SYLLABLES.length * SYLLABLES.length];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = SYLLABLES[i / SYLLABLES.length] + SYLLABLES[i % SYLLABLES.length];
+        }
+    }
+
+    /**
+     * Ids and search terms of what was written, for the client to pick request targets from.
+     */
+    record SeededCatalog(long[] productIds, long[] categoryIds, List<String> usernames, List<String> searchTerms) {}
+
+    SeededCatalog seed(DataSource dataSource, int categories, int products, int users) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long[] categoryIds = insertCategories(connection, categories);
+            long[] productIds = insertProducts(connection, products, categoryIds);
+            List<String> usernames = insertUsers(connection, users);
+            connection.commit();
+
+            List<String> searchTerms = new ArrayList<>(List.of(ADJECTIVES));
+            searchTerms.addAll(List.of(NOUNS));
+            searchTerms.addAll(List.of(vocabulary).subList(0, 64));
+            return new SeededCatalog(productIds, categoryIds, usernames, searchTerms);
+        }
+    }
+
+    // One root for roughly every ten categories, the rest spread over the roots; one in ten is inactive
+    private long[] insertCategories(Connection connection, int count) throws SQLException {
+        int roots = Math.max(1, count / 10);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO category (name, description, parent_category, active) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < count; i++) {
+                boolean root = i < roots;
+                insert.setString(1, root
+                        ? String.format(Locale.ROOT, "Department %03d", i)
+                        : String.format(Locale.ROOT, "Category %04d", i));
+                insert.setString(2, sentence(6));
+                insert.setString(3, root ? null : String.format(Locale.ROOT, "Department %03d", i % roots));
+                insert.setBoolean(4, root || random.nextInt(10) != 0);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        return ids(connection, "SELECT id FROM category ORDER BY id");
+    }
+
+    // Explicit ids, then the sequence is moved past them so Hibernate's pooled generator continues after
+    private long[] insertProducts(Connection connection, int count, long[] categoryIds) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO product (id, name, description, price, available, category_id) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= count; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, productName(i));
+                insert.setString(3, sentence(12));
+                insert.setDouble(4, Math.round((0.5 + random.nextDouble() * 250) * 100) / 100.0);
+                insert.setBoolean(5, random.nextInt(10) != 0);
+                insert.setLong(6, categoryIds[random.nextInt(categoryIds.length)]);
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT setval('product_id_seq', " + Math.max(1, count) + ")");
+        }
+        return ids(connection, "SELECT id FROM product ORDER BY id");
+    }
+
+    // All users share one password; hashing it once keeps seeding fast while logins still pay the full cost
+    private List<String> insertUsers(Connection connection, int count) throws SQLException {
+        String hash = new BCryptPasswordEncoder(10).encode(USER_PASSWORD);
+        List<String> usernames = new ArrayList<>(count);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO app_user (username, email, password_hash, first_name, last_name, role, active) "
+                        + "VALUES (?, ?, ?, 'Load', ?, 'USER', TRUE)")) {
+            for (int i = 0; i < count; i++) {
+                String username = String.format(Locale.ROOT, "load_user_%04d", i);
+                insert.setString(1, username);
+                insert.setString(2, username + "@load.test");
+                insert.setString(3, hash);
+                insert.setString(4, "User " + i);
+                insert.addBatch();
+                usernames.add(username);
+            }
+            insert.executeBatch();
+        }
+        return usernames;
+    }
+
+    // "<adjective> <noun> <model>", where the model code is unique to the product
+    private String productName(int i) {
+        return ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                + NOUNS[random.nextInt(NOUNS.length)] + " "
+                + SYLLABLES[i % SYLLABLES.length] + Integer.toString(i, 36);
+    }
+
+    // Squaring the uniform pick skews towards the start of the vocabulary, giving a few very common words
+    private String sentence(int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            double skewed = random.nextDouble();
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(vocabulary[(int) (skewed * skewed * vocabulary.length)]);
+        }
+        return sentence.toString();
+    }
+
+    private static long[] ids(Connection connection, String query) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(query)) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
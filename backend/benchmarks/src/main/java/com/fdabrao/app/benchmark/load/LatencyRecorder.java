@@ -0,0 +1,24 @@
+package com.fdabrao.app.benchmark.load;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * Single-writer growable buffer of latencies in nanoseconds; each client thread owns its own.
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[4096];
+    private int size;
+
+    void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+    }
+
+    LongStream samples() {
+        return Arrays.stream(samples, 0, size);
+    }
+}
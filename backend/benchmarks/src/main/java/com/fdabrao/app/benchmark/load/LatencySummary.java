@@ -0,0 +1,43 @@
+package com.fdabrao.app.benchmark.load;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Throughput and latency percentiles (in milliseconds) of the samples recorded over one measurement window.
+ */
+record LatencySummary(long requests, long errors, double throughput, double p50, double p99, double p999, double max) {
+
+    static LatencySummary of(LatencyRecorder[] recorders, long errors, Duration duration) {
+        long[] all = Arrays.stream(recorders)
+                .flatMapToLong(LatencyRecorder::samples)
+                .sorted()
+                .toArray();
+        double seconds = duration.toNanos() / 1e9;
+        return new LatencySummary(
+                all.length,
+                errors,
+                all.length / seconds,
+                percentileMillis(all, 0.50),
+                percentileMillis(all, 0.99),
+                percentileMillis(all, 0.999),
+                all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    // The summary as JSON members, to be embedded in a caller's object
+    String jsonFields() {
+        return String.format(Locale.ROOT,
+                "\"requests\":%d,\"errors\":%d,\"throughput\":%.1f,\"p50Ms\":%.2f,\"p99Ms\":%.2f,"
+                        + "\"p999Ms\":%.2f,\"maxMs\":%.2f",
+                requests, errors, throughput, p50, p99, p999, max);
+    }
+}
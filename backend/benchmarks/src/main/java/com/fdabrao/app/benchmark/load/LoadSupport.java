@@ -0,0 +1,65 @@
+package com.fdabrao.app.benchmark.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Command line and HTTP helpers shared by the load generators.
+ */
+final class LoadSupport {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private LoadSupport() {}
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    static HttpClient newHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    static HttpRequest loginRequest(URI baseUri, String username, String password) {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+        return HttpRequest.newBuilder(baseUri.resolve("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    static String login(HttpClient http, URI baseUri, String username, String password) throws Exception {
+        HttpResponse<String> response = http.send(
+                loginRequest(baseUri, username, password), HttpResponse.BodyHandlers.ofString());
+        String token = response.statusCode() == 200 ? token(response.body()) : null;
+        if (token == null) {
+            throw new IllegalStateException("Login failed with status " + response.statusCode());
+        }
+        return token;
+    }
+
+    // The JWT from a login response body, or null if there is none
+    static String token(String loginResponse) {
+        Matcher matcher = TOKEN.matcher(loginResponse);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,394 @@
+package com.fdabrao.app.benchmark.load;
+
+import com.fdabrao.app.AppApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.sql.DataSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * End-to-end load test that needs neither Docker nor a running database: starts an embedded Postgres,
+ * creates the schema and seeds a generated catalog, boots {@link AppApplication} against it on a random
+ * port and drives a closed loop of mixed read, write and login requests. Reports throughput, latency
+ * percentiles and allocated bytes per endpoint for the measurement window after the warm-up.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.fdabrao.app.benchmark.load.LoadTestHarness \
+ *     --products=100000 --clients=64 --warmup=20 --duration=60
+ * </pre>
+ *
+ * Options containing a dot (e.g. {@code --spring.threads.virtual.enabled=true}) are passed on to the
+ * application unchanged.
+ */
+public final class LoadTestHarness {
+
+    private static final String DEFAULT_MIX = "list:30,get:20,categories:10,search:15,create:5,update:10,login:10";
+
+    /**
+     * Request kinds of the mix; {@code endpoint} matches the key the allocation filter records them under.
+     */
+    enum Operation {
+        LIST("list", "GET /api/products"),
+        GET("get", "GET /api/products/{id}"),
+        CATEGORIES("categories", "GET /api/categories"),
+        SEARCH("search", "GET /api/products/search"),
+        CREATE("create", "POST /api/products"),
+        UPDATE("update", "PUT /api/products/{id}"),
+        LOGIN("login", "POST /api/auth/login");
+
+        final String option;
+        final String endpoint;
+
+        Operation(String option, String endpoint) {
+            this.option = option;
+            this.endpoint = endpoint;
+        }
+
+        static Operation ofOption(String option) {
+            for (Operation operation : values()) {
+                if (operation.option.equals(option)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation in --mix: " + option);
+        }
+    }
+
+    private LoadTestHarness() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadSupport.parseOptions(args);
+        int categories = Integer.parseInt(options.getOrDefault("categories", "200"));
+        int products = Integer.parseInt(options.getOrDefault("products", "100000"));
+        int users = Integer.parseInt(options.getOrDefault("users", "100"));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "64"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "20")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int[] weights = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+        String label = options.getOrDefault("label", "run");
+
+        // The catalog fits in memory and the data is thrown away, so skip fsync and keep the server quiet
+        EmbeddedPostgres.Builder database = EmbeddedPostgres.builder()
+                .setServerConfig("fsync", "off")
+                .setServerConfig("log_min_messages", "warning")
+                .setOutputRedirector(ProcessBuilder.Redirect.DISCARD);
+        try (EmbeddedPostgres postgres = database.start()) {
+            DataSource dataSource = postgres.getPostgresDatabase(Map.of("reWriteBatchedInserts", "true"));
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+            long seedingStarted = System.nanoTime();
+            CatalogSeeder.SeededCatalog catalog =
+                    new CatalogSeeder(seed).seed(dataSource, categories, products, users);
+            System.err.printf(Locale.ROOT, "Seeded %d categories, %d products and %d users in %.1f s%n",
+                    categories, products, users, (System.nanoTime() - seedingStarted) / 1e9);
+
+            AllocationRecordingFilter allocations = new AllocationRecordingFilter();
+            try (ConfigurableApplicationContext app = startApplication(postgres, allocations, options)) {
+                int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+                URI baseUri = URI.create("http://localhost:" + port);
+                HttpClient http = LoadSupport.newHttpClient();
+
+                Client[] loadClients = new Client[clients];
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < clients; i++) {
+                    String username = catalog.usernames().get(i % catalog.usernames().size());
+                    String token = LoadSupport.login(http, baseUri, username, CatalogSeeder.USER_PASSWORD);
+                    loadClients[i] = new Client(i, username, token, random.split());
+                }
+
+                System.err.printf(Locale.ROOT, "Running %d clients: %s warm-up, %s measured%n",
+                        clients, warmup, duration);
+                Report report = run(http, baseUri, catalog, loadClients, weights, warmup, duration, allocations);
+                report.print(System.out);
+                String out = options.get("out");
+                if (out != null) {
+                    Files.write(Path.of(out), report.jsonLines(label, clients), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                } else {
+                    report.jsonLines(label, clients).forEach(System.out::println);
+                }
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(
+            EmbeddedPostgres postgres, AllocationRecordingFilter allocations, Map<String, String> options) {
+        // Command line arguments so they win over application.properties
+        List<String> appArgs = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:postgresql://localhost:" + postgres.getPort() + "/postgres",
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--jwt.secret=" + randomSecret(),
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        options.forEach((name, value) -> {
+            if (name.contains(".")) {
+                appArgs.add("--" + name + "=" + value);
+            }
+        });
+
+        FilterRegistrationBean<AllocationRecordingFilter> registration = new FilterRegistrationBean<>(allocations);
+        // Outside of the security filter chain, so authentication is part of what is measured
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return new SpringApplicationBuilder(AppApplication.class)
+                .initializers(context -> context.getBeanFactory()
+                        .registerSingleton("allocationRecordingFilter", registration))
+                .run(appArgs.toArray(String[]::new));
+    }
+
+    // The application has no default signing key; tokens only have to outlive this run
+    private static String randomSecret() {
+        byte[] bytes = new byte[48];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    private static int[] parseMix(String mix) {
+        int[] weights = new int[Operation.values().length];
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights[Operation.ofOption(parts[0]).ordinal()] = Integer.parseInt(parts[1]);
+        }
+        // Cumulative, so a uniform pick below the total maps to an operation
+        for (int i = 1; i < weights.length; i++) {
+            weights[i] += weights[i - 1];
+        }
+        if (weights[weights.length - 1] <= 0) {
+            throw new IllegalArgumentException("--mix needs at least one positive weight");
+        }
+        return weights;
+    }
+
+    private static Report run(HttpClient http, URI baseUri, CatalogSeeder.SeededCatalog catalog, Client[] clients,
+            int[] weights, Duration warmup, Duration duration, AllocationRecordingFilter allocations)
+            throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        int operations = Operation.values().length;
+        LatencyRecorder[][] recorders = new LatencyRecorder[operations][clients.length];
+        AtomicLongArray errors = new AtomicLongArray(operations);
+        CountDownLatch done = new CountDownLatch(clients.length);
+
+        for (Client client : clients) {
+            for (int op = 0; op < operations; op++) {
+                recorders[op][client.index] = new LatencyRecorder();
+            }
+            Thread thread = new Thread(() -> {
+                try {
+                    long now;
+                    while ((now = System.nanoTime()) < measureUntil) {
+                        Operation operation = client.pick(weights);
+                        boolean ok = client.send(http, baseUri, catalog, operation);
+                        long finished = System.nanoTime();
+                        if (now >= measureFrom) {
+                            if (ok) {
+                                recorders[operation.ordinal()][client.index].record(finished - now);
+                            } else {
+                                errors.incrementAndGet(operation.ordinal());
+                            }
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + client.index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        sleepUntil(measureFrom);
+        allocations.start();
+        sleepUntil(measureUntil);
+        allocations.stop();
+        done.await();
+
+        Map<String, AllocationRecordingFilter.Allocation> allocated = allocations.snapshot();
+        List<Report.Row> rows = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            LatencySummary latency = LatencySummary.of(
+                    recorders[operation.ordinal()], errors.get(operation.ordinal()), duration);
+            if (latency.requests() + latency.errors() > 0) {
+                rows.add(new Report.Row(operation.endpoint, latency, allocated.get(operation.endpoint)));
+            }
+        }
+        return new Report(rows, duration);
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            Thread.sleep(Math.max(1, remaining / 1_000_000));
+        }
+    }
+
+    /**
+     * One closed-loop client: a logged-in user with its own random stream, used only by its thread.
+     */
+    private static final class Client {
+        final int index;
+        final String username;
+        final SplittableRandom random;
+        String token;
+        int created;
+
+        Client(int index, String username, String token, SplittableRandom random) {
+            this.index = index;
+            this.username = username;
+            this.token = token;
+            this.random = random;
+        }
+
+        Operation pick(int[] cumulativeWeights) {
+            int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (pick < cumulativeWeights[i]) {
+                    return Operation.values()[i];
+                }
+            }
+            throw new IllegalStateException();
+        }
+
+        boolean send(HttpClient http, URI baseUri, CatalogSeeder.SeededCatalog catalog, Operation operation) {
+            try {
+                if (operation == Operation.LOGIN) {
+                    HttpResponse<String> response = http.send(
+                            LoadSupport.loginRequest(baseUri, username, CatalogSeeder.USER_PASSWORD),
+                            HttpResponse.BodyHandlers.ofString());
+                    String refreshed = response.statusCode() == 200 ? LoadSupport.token(response.body()) : null;
+                    if (refreshed == null) {
+                        return false;
+                    }
+                    token = refreshed;
+                    return true;
+                }
+                int status = http.send(request(baseUri, catalog, operation), HttpResponse.BodyHandlers.discarding())
+                        .statusCode();
+                return status >= 200 && status < 300;
+            } catch (IOException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private HttpRequest request(URI baseUri, CatalogSeeder.SeededCatalog catalog, Operation operation) {
+            long[] productIds = catalog.productIds();
+            long[] categoryIds = catalog.categoryIds();
+            HttpRequest.Builder request = switch (operation) {
+                case LIST -> HttpRequest.newBuilder(baseUri.resolve("/api/products?limit=50"
+                        + (random.nextBoolean() ? "&sort=price" : "")
+                        + (random.nextInt(3) == 0 ? "&categoryId=" + categoryIds[random.nextInt(categoryIds.length)] : "")));
+                case GET -> HttpRequest.newBuilder(
+                        baseUri.resolve("/api/products/" + productIds[random.nextInt(productIds.length)]));
+                case CATEGORIES -> HttpRequest.newBuilder(baseUri.resolve("/api/categories?activeOnly=true"));
+                case SEARCH -> {
+                    // Whole words and three-letter prefixes of them
+                    String term = catalog.searchTerms().get(random.nextInt(catalog.searchTerms().size()));
+                    yield HttpRequest.newBuilder(baseUri.resolve("/api/products/search?q="
+                            + (random.nextBoolean() ? term : term.substring(0, Math.min(3, term.length())))));
+                }
+                case CREATE -> HttpRequest.newBuilder(baseUri.resolve("/api/products"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(productJson(
+                                "load product " + index + "-" + created++, categoryIds)));
+                case UPDATE -> {
+                    long id = productIds[random.nextInt(productIds.length)];
+                    yield HttpRequest.newBuilder(baseUri.resolve("/api/products/" + id))
+                            .header("Content-Type", "application/json")
+                            .PUT(HttpRequest.BodyPublishers.ofString(productJson(
+                                    "updated product " + id, categoryIds)));
+                }
+                case LOGIN -> throw new IllegalArgumentException("Logins are sent without a token");
+            };
+            return request
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+        }
+
+        private String productJson(String name, long[] categoryIds) {
+            return String.format(Locale.ROOT,
+                    "{\"name\":\"%s\",\"description\":\"written by the load test\",\"price\":%.2f,"
+                            + "\"available\":true,\"category\":{\"id\":%d}}",
+                    name, 1 + random.nextDouble() * 100, categoryIds[random.nextInt(categoryIds.length)]);
+        }
+    }
+
+    /**
+     * Per-endpoint results of the measurement window.
+     */
+    record Report(List<Row> rows, Duration duration) {
+
+        record Row(String endpoint, LatencySummary latency, AllocationRecordingFilter.Allocation allocation) {
+
+            double bytesPerRequest() {
+                return allocation == null || allocation.requests() == 0
+                        ? 0 : (double) allocation.bytes() / allocation.requests();
+            }
+
+            double allocationRateMBps(Duration duration) {
+                return allocation == null ? 0 : allocation.bytes() / (duration.toNanos() / 1e9) / (1024 * 1024);
+            }
+        }
+
+        void print(PrintStream out) {
+            out.printf(Locale.ROOT, "%-26s %9s %7s %9s %8s %8s %8s %8s %9s %8s%n", "endpoint",
+                    "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "KB/req", "MB/s");
+            long requests = 0;
+            long errors = 0;
+            double allocationRate = 0;
+            for (Row row : rows) {
+                LatencySummary latency = row.latency();
+                out.printf(Locale.ROOT, "%-26s %9d %7d %9.1f %8.2f %8.2f %8.2f %8.2f %9.1f %8.1f%n",
+                        row.endpoint(), latency.requests(), latency.errors(), latency.throughput(),
+                        latency.p50(), latency.p99(), latency.p999(), latency.max(),
+                        row.bytesPerRequest() / 1024, row.allocationRateMBps(duration));
+                requests += latency.requests();
+                errors += latency.errors();
+                allocationRate += row.allocationRateMBps(duration);
+            }
+            out.printf(Locale.ROOT, "%-26s %9d %7d %9.1f %8s %8s %8s %8s %9s %8.1f%n", "total",
+                    requests, errors, requests / (duration.toNanos() / 1e9), "", "", "", "", "", allocationRate);
+        }
+
+        List<String> jsonLines(String label, int clients) {
+            List<String> lines = new ArrayList<>();
+            for (Row row : rows) {
+                lines.add(String.format(Locale.ROOT,
+                        "{\"label\":\"%s\",\"endpoint\":\"%s\",\"clients\":%d,%s,"
+                                + "\"allocatedBytesPerRequest\":%.0f,\"allocationRateMBps\":%.1f}",
+                        label, row.endpoint(), clients, row.latency().jsonFields(),
+                        row.bytesPerRequest(), row.allocationRateMBps(duration)));
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.fdabrao.app.benchmark.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against a running backend: {@code clients} threads each send one
+ * authenticated GET, wait for the response and immediately send the next. Latencies measured
+ * after the warm-up are reported as throughput and percentiles, one JSON line on stdout.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.fdabrao.app.benchmark.load.ProductListLoadGenerator \
+ *     --url=http://localhost:8080 --path=/api/products?limit=50 --clients=200 --warmup=10 --duration=30
+ * </pre>
+ */
+public final class ProductListLoadGenerator {
+
+    private ProductListLoadGenerator() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadSupport.parseOptions(args);
+        URI baseUri = URI.create(options.getOrDefault("url", "http://localhost:8080"));
+        String path = options.getOrDefault("path", "/api/products?limit=50");
+        int clients = Integer.parseInt(options.getOrDefault("clients", "200"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        String label = options.getOrDefault("label", "run");
+
+        HttpClient http = LoadSupport.newHttpClient();
+        String token = LoadSupport.login(http, baseUri,
+                options.getOrDefault("username", "admin"), options.getOrDefault("password", "admin"));
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        LatencySummary summary = run(http, request, clients, warmup, duration);
+        System.out.println(String.format(Locale.ROOT, "{\"label\":\"%s\",\"path\":\"%s\",\"clients\":%d,%s}",
+                label, path, clients, summary.jsonFields()));
+    }
+
+    static LatencySummary run(HttpClient http, HttpRequest request, int clients, Duration warmup, Duration duration)
+            throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        LatencyRecorder[] recorders = new LatencyRecorder[clients];
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(clients);
+
+        for (int i = 0; i < clients; i++) {
+            LatencyRecorder recorder = new LatencyRecorder();
+            recorders[i] = recorder;
+            Thread client = new Thread(() -> {
+                try {
+                    long now;
+                    while ((now = System.nanoTime()) < measureUntil) {
+                        boolean ok;
+                        try {
+                            ok = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long finished = System.nanoTime();
+                        if (now >= measureFrom) {
+                            if (ok) {
+                                recorder.record(finished - now);
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + i);
+            client.setDaemon(true);
+            client.start();
+        }
+        done.await();
+        return LatencySummary.of(recorders, errors.get(), duration);
+    }
+}
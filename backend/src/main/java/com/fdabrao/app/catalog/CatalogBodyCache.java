@@ -0,0 +1,278 @@
+package com.fdabrao.app.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fdabrao.app.persistence.ReplicaRoutingDataSource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Serialized bodies of the most requested catalog lists, per catalog version and representation, each kept
+ * both plain and gzipped. A hit copies the stored bytes into the response without querying, serializing or
+ * compressing anything. Entries of earlier catalog versions are never looked up again and are evicted first
+ * as the cache fills up. A size of 0 turns it off.
+ * <p>
+ * Lists served as snapshots are also rebuilt in the background after every catalog change, for as long as
+ * they keep being requested, so the first request after a write usually finds them ready.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CatalogBodyCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(CatalogBodyCache.class);
+
+  private final CatalogVersion catalogVersion;
+  private final TransactionTemplate readOnlyTransaction;
+  private final Map<CatalogRepresentation, ObjectMapper> mappers = new EnumMap<>(CatalogRepresentation.class);
+  private final Cache<Key, Body> bodies;
+  private final boolean enabled;
+  private final long gzipMinBytes;
+  private final long rebuildDelayMs;
+
+  // Snapshots requested recently, with what produces them
+  private final Cache<Snapshot, Supplier<ResponseEntity<?>>> snapshots;
+  private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "catalog-snapshots");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final AtomicBoolean rebuildPending = new AtomicBoolean();
+  private final Timer rebuilds;
+
+  private record Key(long version, String list, CatalogRepresentation representation) {}
+
+  private record Snapshot(String list, CatalogRepresentation representation) {}
+
+  // gzipped is null for bodies too small to be worth compressing
+  private record Body(HttpHeaders headers, byte[] bytes, byte[] gzipped) {
+
+    int weight() {
+      return bytes.length + (gzipped != null ? gzipped.length : 0);
+    }
+  }
+
+  public CatalogBodyCache(CatalogVersion catalogVersion,
+                          PlatformTransactionManager transactionManager,
+                          ObjectMapper objectMapper,
+                          MappingJackson2SmileHttpMessageConverter smileConverter,
+                          MappingJackson2CborHttpMessageConverter cborConverter,
+                          @Value("${app.catalog.body-cache.max-bytes:33554432}") long maxBytes,
+                          @Value("${server.compression.min-response-size:2KB}") DataSize gzipMinSize,
+                          @Value("${app.catalog.snapshots.idle-ms:600000}") long snapshotIdleMs,
+                          @Value("${app.catalog.snapshots.rebuild-delay-ms:100}") long rebuildDelayMs,
+                          MeterRegistry meterRegistry) {
+    this.catalogVersion = catalogVersion;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    mappers.put(CatalogRepresentation.JSON, objectMapper);
+    mappers.put(CatalogRepresentation.SMILE, smileConverter.getObjectMapper());
+    mappers.put(CatalogRepresentation.CBOR, cborConverter.getObjectMapper());
+    this.bodies = Caffeine.newBuilder()
+        .maximumWeight(maxBytes)
+        .<Key, Body>weigher((key, body) -> body.weight() + key.list().length())
+        .recordStats()
+        .build();
+    this.enabled = maxBytes > 0;
+    this.gzipMinBytes = gzipMinSize.toBytes();
+    this.rebuildDelayMs = rebuildDelayMs;
+    this.snapshots = Caffeine.newBuilder()
+        .expireAfterAccess(Duration.ofMillis(snapshotIdleMs))
+        .maximumSize(10_000)
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, bodies, "catalog.bodies");
+    this.rebuilds = Timer.builder("catalog.snapshots.rebuild")
+        .description("Background passes rebuilding the requested catalog snapshots after a change")
+        .register(meterRegistry);
+  }
+
+  /**
+   * The response for {@code list} in the representation and encoding the request headers ask for. On a
+   * miss {@code handler} produces the response, whose body is serialized and kept with its headers; it must
+   * read nothing older than the current catalog version and depend on nothing but {@code list}.
+   */
+  public ResponseEntity<byte[]> respond(String list, HttpHeaders request, Supplier<ResponseEntity<?>> handler) {
+    return render(list, request, handler, false);
+  }
+
+  /**
+   * Like {@link #respond}, and the list is also rebuilt in the background after catalog changes until it
+   * has not been requested for a while. {@code handler} must then work outside the request as well.
+   */
+  public ResponseEntity<byte[]> snapshot(String list, HttpHeaders request, Supplier<ResponseEntity<?>> handler) {
+    return render(list, request, handler, true);
+  }
+
+  /**
+   * Whether the Accept-Encoding header allows a gzipped body.
+   */
+  public static boolean acceptsGzip(HttpHeaders request) {
+    for (String header : request.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+      for (String coding : header.split(",")) {
+        String[] parts = coding.split(";");
+        String name = parts[0].trim();
+        if ((name.equalsIgnoreCase("gzip") || name.equals("*")) && !refused(parts)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogChange(CatalogChangeEvent event) {
+    // Changes committed in quick succession share one rebuild
+    if (enabled && rebuildPending.compareAndSet(false, true)) {
+      try {
+        rebuilder.schedule(this::rebuildSnapshots, rebuildDelayMs, TimeUnit.MILLISECONDS);
+      } catch (RuntimeException e) {
+        // Shutting down
+        rebuildPending.set(false);
+      }
+    }
+  }
+
+  @EventListener(ContextClosedEvent.class)
+  public void shutdown() {
+    rebuilder.shutdownNow();
+  }
+
+  void rebuildSnapshots() {
+    // A change committed from here on schedules the next pass
+    rebuildPending.set(false);
+    long version = catalogVersion.current().version();
+    rebuilds.record(() -> snapshots.asMap().forEach((snapshot, handler) -> {
+      Key key = new Key(version, snapshot.list(), snapshot.representation());
+      if (bodies.getIfPresent(key) != null) {
+        return;
+      }
+      try {
+        // Stored under the current version, so it must not come from a lagging replica
+        Body body = ReplicaRoutingDataSource.readFromPrimary(() -> readOnlyTransaction.execute(
+            status -> build(handler, snapshot.representation())));
+        bodies.put(key, body);
+      } catch (RuntimeException e) {
+        logger.warn("Could not rebuild catalog snapshot {}", snapshot.list(), e);
+      }
+    }));
+  }
+
+  private ResponseEntity<byte[]> render(String list, HttpHeaders request, Supplier<ResponseEntity<?>> handler,
+                                        boolean keepWarm) {
+    CatalogRepresentation representation =
+        CatalogRepresentation.negotiate(String.join(",", request.getOrEmpty(HttpHeaders.ACCEPT)));
+    if (representation == null) {
+      // Without a body, since the client accepts none of the formats an error body could be written in
+      return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+    }
+    if (keepWarm && enabled) {
+      Snapshot snapshot = new Snapshot(list, representation);
+      if (snapshots.getIfPresent(snapshot) == null) {
+        snapshots.put(snapshot, handler);
+      }
+    }
+    // Read before the handler runs, so a body is never stored under a version newer than its data
+    Key key = new Key(catalogVersion.current().version(), list, representation);
+    Body body = enabled ? bodies.getIfPresent(key) : null;
+    if (body == null) {
+      body = build(handler, representation);
+      if (enabled) {
+        bodies.put(key, body);
+      }
+    }
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .headers(body.headers())
+        .contentType(representation.mediaType())
+        .varyBy(HttpHeaders.ACCEPT_ENCODING);
+    if (body.gzipped() != null && acceptsGzip(request)) {
+      // Already encoded, so the container does not compress it again
+      markGzipped();
+      return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzipped());
+    }
+    return response.body(body.bytes());
+  }
+
+  // The ETag set by the conditional request interceptor names the identity body. It is already on the
+  // servlet response, where an ETag in the returned entity would not replace it.
+  private static void markGzipped() {
+    if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+        && attributes.getResponse() != null) {
+      HttpServletResponse servletResponse = attributes.getResponse();
+      String etag = servletResponse.getHeader(HttpHeaders.ETAG);
+      if (etag != null) {
+        servletResponse.setHeader(HttpHeaders.ETAG, CatalogRepresentation.gzipped(etag));
+      }
+    }
+  }
+
+  private Body build(Supplier<ResponseEntity<?>> handler, CatalogRepresentation representation) {
+    ResponseEntity<?> response = handler.get();
+    byte[] bytes;
+    try {
+      bytes = mappers.get(representation).writeValueAsBytes(response.getBody());
+    } catch (JsonProcessingException e) {
+      throw new HttpMessageNotWritableException("Could not write " + representation + " body", e);
+    }
+    byte[] gzipped = bytes.length >= gzipMinBytes ? gzip(bytes) : null;
+    return new Body(HttpHeaders.readOnlyHttpHeaders(response.getHeaders()), bytes, gzipped);
+  }
+
+  private static byte[] gzip(byte[] bytes) {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return compressed.toByteArray();
+  }
+
+  // "gzip;q=0" explicitly refuses the coding
+  private static boolean refused(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim();
+      if (parameter.startsWith("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2).trim()) == 0;
+        } catch (NumberFormatException e) {
+          return false;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,27 @@
+package com.fdabrao.app.catalog;
+
+/**
+ * Published whenever a catalog entity is inserted, updated or deleted.
+ * Listeners that need committed data should use {@code @TransactionalEventListener}.
+ * The entity is the instance that was written, for listeners that need its state.
+ * Remote events describe a change committed by another node, see {@link CatalogChangeRelay}; their entity
+ * is a detached copy.
+ */
+public record CatalogChangeEvent(EntityType entityType, Long id, ChangeType changeType, Object entity,
+                                 boolean remote) {
+
+  public CatalogChangeEvent(EntityType entityType, Long id, ChangeType changeType, Object entity) {
+    this(entityType, id, changeType, entity, false);
+  }
+
+  public enum EntityType {
+    PRODUCT,
+    CATEGORY
+  }
+
+  public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+}
@@ -0,0 +1,344 @@
+package com.fdabrao.app.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fdabrao.app.catalog.CatalogChangeEvent.ChangeType;
+import com.fdabrao.app.catalog.CatalogChangeEvent.EntityType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Committed catalog changes as a stream of Server-Sent Events. The most recent changes are kept in a
+ * fixed-size ring buffer under increasing ids, so a client can resume after the last id it saw.
+ * <p>
+ * Each subscriber is only a position in that buffer; nothing is queued per client. Events are written by a
+ * fixed pool of sender threads, at most one per subscriber at a time. A subscriber is disconnected when it
+ * falls more than {@code max-lag} changes behind, when a single write to it blocks for longer than
+ * {@code send-timeout-ms} (the client stopped reading), or when its next change has been overwritten. On
+ * reconnecting it is told to {@code reset}, i.e. reload the catalog, if changes were missed.
+ */
+@Component
+public class CatalogChangeFeed {
+
+  private static final Logger logger = LoggerFactory.getLogger(CatalogChangeFeed.class);
+
+  private static final int SEND_BATCH = 100;
+  private static final String DROPPED = "Client fell behind the catalog change stream or stopped reading";
+
+  private final ObjectMapper objectMapper;
+  private final Change[] ring;
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final ThreadPoolExecutor senders;
+  private final long maxLag;
+  private final long sendTimeoutNanos;
+  private final Counter droppedStreams;
+
+  // Seeded from the clock so ids keep increasing across restarts and ids of an earlier run are never resumed
+  private final long firstId = System.currentTimeMillis() * 1000;
+  private long nextId = firstId;
+
+  private record Change(long id, String data) {}
+
+  public CatalogChangeFeed(ObjectMapper objectMapper,
+                           @Value("${app.catalog.changes.buffer-size:10000}") int bufferSize,
+                           @Value("${app.catalog.changes.sender-threads:8}") int senderThreads,
+                           @Value("${app.catalog.changes.max-lag:5000}") long maxLag,
+                           @Value("${app.catalog.changes.send-timeout-ms:10000}") long sendTimeoutMs,
+                           MeterRegistry meterRegistry) {
+    this.objectMapper = objectMapper;
+    this.ring = new Change[bufferSize];
+    // The queue holds at most one task per subscriber
+    this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), daemonThreads("catalog-changes-"));
+    this.senders.allowCoreThreadTimeOut(true);
+    this.maxLag = maxLag;
+    this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+    Gauge.builder("catalog.changes.subscribers", subscribers, Set::size)
+        .description("Open catalog change streams")
+        .register(meterRegistry);
+    this.droppedStreams = Counter.builder("catalog.changes.dropped")
+        .description("Change streams closed because the client fell behind or stopped reading")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Streams changes to {@code emitter}, starting after {@code lastEventId}, or from now when it is null.
+   */
+  public void subscribe(SseEmitter emitter, Long lastEventId) {
+    Subscriber subscriber = new Subscriber(emitter);
+    long head = latestId();
+    if (lastEventId == null) {
+      subscriber.position = head;
+    } else if (lastEventId < oldestId() - 1 || lastEventId > head) {
+      // Missed changes (or an id from another run): the client has to reload, then follow from here
+      subscriber.position = head;
+      subscriber.reset = true;
+    } else {
+      subscriber.position = lastEventId;
+    }
+    subscriber.greeting = true;
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onTimeout(() -> subscribers.remove(subscriber));
+    emitter.onError(error -> subscribers.remove(subscriber));
+    subscribers.add(subscriber);
+    subscriber.signal();
+  }
+
+  // After the in-process views are updated, so a client that reloads on an event sees the change
+  @TransactionalEventListener(fallbackExecution = true)
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onCatalogChange(CatalogChangeEvent event) {
+    append(event);
+    long head = latestId();
+    for (Subscriber subscriber : subscribers) {
+      if (head - subscriber.position > maxLag) {
+        subscriber.drop();
+      } else {
+        subscriber.signal();
+      }
+    }
+  }
+
+  // A write blocks once the client stops reading and its socket buffers are full
+  @Scheduled(fixedDelayString = "${app.catalog.changes.stall-check-ms:1000}")
+  public void dropStalled() {
+    long now = System.nanoTime();
+    for (Subscriber subscriber : subscribers) {
+      if (subscriber.writingSince(now) > sendTimeoutNanos) {
+        subscriber.drop();
+      }
+    }
+  }
+
+  // Comment lines keep idle connections open through proxies and reveal clients that went away
+  @Scheduled(fixedDelayString = "${app.catalog.changes.heartbeat-ms:15000}")
+  public void heartbeat() {
+    for (Subscriber subscriber : subscribers) {
+      subscriber.heartbeat = true;
+      subscriber.signal();
+    }
+  }
+
+  @EventListener(ContextClosedEvent.class)
+  public void closeAll() {
+    // Open streams would otherwise hold up graceful shutdown until they time out
+    subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    subscribers.clear();
+    senders.shutdown();
+  }
+
+  private void append(CatalogChangeEvent event) {
+    String data = toJson(event);
+    synchronized (this) {
+      long id = nextId++;
+      ring[(int) (id % ring.length)] = new Change(id, data);
+    }
+  }
+
+  private synchronized long latestId() {
+    return nextId - 1;
+  }
+
+  private synchronized long oldestId() {
+    return Math.max(firstId, nextId - ring.length);
+  }
+
+  // Changes after `position`, at most `limit` of them; null when some were already overwritten
+  private synchronized List<Change> changesAfter(long position, int limit) {
+    if (position < Math.max(firstId, nextId - ring.length) - 1) {
+      return null;
+    }
+    List<Change> changes = new ArrayList<>();
+    for (long id = position + 1; id < nextId && changes.size() < limit; id++) {
+      changes.add(ring[(int) (id % ring.length)]);
+    }
+    return changes;
+  }
+
+  private String toJson(CatalogChangeEvent event) {
+    // Serialized once here, while the entity is in its committed state, and shared by every subscriber
+    Object entity = event.changeType() == ChangeType.DELETED ? null : event.entity();
+    try {
+      return objectMapper.writeValueAsString(
+          new ChangeNotice(event.entityType(), event.id(), event.changeType(), entity));
+    } catch (JsonProcessingException e) {
+      logger.warn("Could not serialize {} {} for the change feed", event.entityType(), event.id(), e);
+      return "{\"entityType\":\"" + event.entityType() + "\",\"entityId\":" + event.id()
+          + ",\"changeType\":\"" + event.changeType() + "\",\"entity\":null}";
+    }
+  }
+
+  /**
+   * Body of a {@code change} event, whose SSE id is the event id; {@code entity} is the state after the
+   * change, null for deletions.
+   */
+  public record ChangeNotice(EntityType entityType, Long entityId, ChangeType changeType, Object entity) {
+  }
+
+  // One connected client; at most one sender task per subscriber runs at a time
+  private final class Subscriber {
+    final SseEmitter emitter;
+    final AtomicBoolean sending = new AtomicBoolean();
+    volatile long position;
+    volatile boolean greeting;
+    volatile boolean reset;
+    volatile boolean heartbeat;
+    volatile boolean dropped;
+    // The sender thread while it is inside a write, and since when; guarded by this
+    private Thread writer;
+    private long writeStartedNanos;
+
+    Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    // Disconnects the subscriber; its sender completes the stream, after its write is interrupted if blocked
+    void drop() {
+      if (!subscribers.remove(this)) {
+        return;
+      }
+      droppedStreams.increment();
+      synchronized (this) {
+        this.dropped = true;
+        if (writer != null) {
+          writer.interrupt();
+        }
+      }
+      signal();
+    }
+
+    synchronized long writingSince(long now) {
+      return writer != null ? now - writeStartedNanos : 0;
+    }
+
+    void signal() {
+      if (sending.compareAndSet(false, true)) {
+        try {
+          senders.execute(this::send);
+        } catch (RuntimeException e) {
+          // Shutting down
+          sending.set(false);
+        }
+      }
+    }
+
+    private void send() {
+      try {
+        while (true) {
+          if (dropped) {
+            throw new IOException(DROPPED);
+          }
+          if (!sendPending()) {
+            return;
+          }
+          sending.set(false);
+          // A change or heartbeat that arrived after the last check would otherwise wait for the next one
+          if (!hasPending() || !sending.compareAndSet(false, true)) {
+            return;
+          }
+        }
+      } catch (IOException | IllegalStateException e) {
+        // Client gone, too slow, or stream already completed
+        subscribers.remove(this);
+        emitter.completeWithError(e);
+        sending.set(false);
+      }
+    }
+
+    // Sends everything due; false when the subscriber was dropped
+    private boolean sendPending() throws IOException {
+      if (greeting) {
+        greeting = false;
+        if (reset) {
+          reset = false;
+          write(SseEmitter.event().name("reset").id(Long.toString(position)).data(""));
+        }
+        // Tells a new client the id to resume from, even before the first change
+        write(SseEmitter.event().name("ready").id(Long.toString(position)).data(""));
+      }
+      while (true) {
+        List<Change> changes = changesAfter(position, SEND_BATCH);
+        if (changes == null) {
+          // Too slow to keep up: rather than buffer for it, let it reconnect and reload
+          if (subscribers.remove(this)) {
+            droppedStreams.increment();
+          }
+          emitter.complete();
+          return false;
+        }
+        if (changes.isEmpty()) {
+          break;
+        }
+        for (Change change : changes) {
+          write(SseEmitter.event()
+              .name("change")
+              .id(Long.toString(change.id()))
+              .data(change.data(), MediaType.APPLICATION_JSON));
+          position = change.id();
+        }
+        heartbeat = false;
+      }
+      if (heartbeat) {
+        heartbeat = false;
+        write(SseEmitter.event().comment("heartbeat"));
+      }
+      return true;
+    }
+
+    private void write(SseEmitter.SseEventBuilder event) throws IOException {
+      synchronized (this) {
+        if (dropped) {
+          throw new IOException(DROPPED);
+        }
+        writer = Thread.currentThread();
+        writeStartedNanos = System.nanoTime();
+      }
+      try {
+        emitter.send(event);
+      } finally {
+        synchronized (this) {
+          writer = null;
+          // An interrupt from drop() must not reach the next subscriber this thread serves
+          Thread.interrupted();
+        }
+      }
+    }
+
+    private boolean hasPending() {
+      return dropped || greeting || heartbeat || position < latestId();
+    }
+  }
+
+  private static ThreadFactory daemonThreads(String prefix) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,47 @@
+package com.fdabrao.app.catalog;
+
+import com.fdabrao.app.catalog.CatalogChangeEvent.ChangeType;
+import com.fdabrao.app.catalog.CatalogChangeEvent.EntityType;
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener that turns catalog entity lifecycle callbacks into {@link CatalogChangeEvent}s.
+ * Instantiated by Hibernate through Spring's bean container, so its dependencies are injected.
+ * Bulk JPQL statements bypass entity callbacks and therefore publish nothing.
+ */
+public class CatalogChangeListener {
+
+  private final ApplicationEventPublisher publisher;
+
+  public CatalogChangeListener(ApplicationEventPublisher publisher) {
+    this.publisher = publisher;
+  }
+
+  @PostPersist
+  void onCreated(Object entity) {
+    publish(entity, ChangeType.CREATED);
+  }
+
+  @PostUpdate
+  void onUpdated(Object entity) {
+    publish(entity, ChangeType.UPDATED);
+  }
+
+  @PostRemove
+  void onDeleted(Object entity) {
+    publish(entity, ChangeType.DELETED);
+  }
+
+  private void publish(Object entity, ChangeType changeType) {
+    if (entity instanceof Categories category) {
+      publisher.publishEvent(new CatalogChangeEvent(EntityType.CATEGORY, category.getId(), changeType, category));
+    } else if (entity instanceof Product product) {
+      publisher.publishEvent(new CatalogChangeEvent(EntityType.PRODUCT, product.getId(), changeType, product));
+    }
+  }
+}
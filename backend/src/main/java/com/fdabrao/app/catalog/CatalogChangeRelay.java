@@ -0,0 +1,103 @@
+package com.fdabrao.app.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fdabrao.app.catalog.CatalogChangeEvent.ChangeType;
+import com.fdabrao.app.catalog.CatalogChangeEvent.EntityType;
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Product;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Carries committed catalog changes between nodes that share a Redis tier. Each change is published with the
+ * written entity, and every other node republishes it as a remote {@link CatalogChangeEvent}, so its
+ * node-local views (catalog version, category cache, search index, serialized bodies, export, change feed)
+ * follow writes made anywhere. Shares the channel of the cache evictions, which carry no entity type.
+ * Pub/sub does not redeliver: a node that was disconnected keeps stale views until the next change of the
+ * same entity, or a restart.
+ */
+public class CatalogChangeRelay implements MessageListener {
+
+  private static final Logger logger = LoggerFactory.getLogger(CatalogChangeRelay.class);
+
+  private final RedisConnectionFactory connectionFactory;
+  private final byte[] channel;
+  private final ObjectMapper objectMapper;
+  private final ApplicationEventPublisher publisher;
+  // Lets a node recognize, and skip, its own messages
+  private final String nodeId = UUID.randomUUID().toString();
+
+  // The entity is null for deletions
+  record RelayedChange(String node, EntityType entityType, Long id, ChangeType changeType, JsonNode entity) {}
+
+  public CatalogChangeRelay(RedisConnectionFactory connectionFactory,
+                            String channel,
+                            ObjectMapper objectMapper,
+                            ApplicationEventPublisher publisher) {
+    this.connectionFactory = connectionFactory;
+    this.channel = channel.getBytes(StandardCharsets.UTF_8);
+    this.objectMapper = objectMapper;
+    this.publisher = publisher;
+  }
+
+  // After commit, so the other nodes read the new rows when they reload
+  @TransactionalEventListener(fallbackExecution = true)
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onCatalogChange(CatalogChangeEvent event) {
+    if (event.remote()) {
+      return;
+    }
+    try (RedisConnection connection = connectionFactory.getConnection()) {
+      JsonNode entity = event.changeType() == ChangeType.DELETED || event.entity() == null
+        ? null
+        : objectMapper.valueToTree(event.entity());
+      RelayedChange change = new RelayedChange(nodeId, event.entityType(), event.id(), event.changeType(), entity);
+      connection.publish(channel, objectMapper.writeValueAsBytes(change));
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Could not relay the change of {} {}: {}", event.entityType(), event.id(), e.toString());
+    }
+  }
+
+  @Override
+  public void onMessage(Message message, @Nullable byte[] pattern) {
+    RelayedChange change;
+    try {
+      JsonNode body = objectMapper.readTree(message.getBody());
+      if (!body.hasNonNull("entityType")) {
+        return; // a cache eviction
+      }
+      change = objectMapper.treeToValue(body, RelayedChange.class);
+    } catch (IOException e) {
+      logger.warn("Ignoring an unreadable catalog change", e);
+      return;
+    }
+    if (nodeId.equals(change.node())) {
+      return;
+    }
+    Class<?> entityClass = change.entityType() == EntityType.PRODUCT ? Product.class : Categories.class;
+    Object entity;
+    try {
+      entity = change.entity() == null || change.entity().isNull()
+        ? null
+        : objectMapper.treeToValue(change.entity(), entityClass);
+    } catch (IOException e) {
+      logger.warn("Ignoring an unreadable {} {}", change.entityType(), change.id(), e);
+      return;
+    }
+    publisher.publishEvent(new CatalogChangeEvent(change.entityType(), change.id(), change.changeType(), entity,
+      true));
+  }
+}
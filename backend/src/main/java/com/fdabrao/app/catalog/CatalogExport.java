@@ -0,0 +1,186 @@
+package com.fdabrao.app.catalog;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.persistence.ProductRepository;
+import com.fdabrao.app.persistence.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The full catalog as newline-delimited JSON, one product per line. Rows are read through a server-side
+ * JDBC cursor and written as they arrive, so memory use does not grow with the size of the catalog.
+ * <p>
+ * Once the export has been asked for gzipped, a gzipped copy of it is also kept and rebuilt in the
+ * background after every catalog change. Only the compressed bytes are held; while the copy is behind the
+ * catalog the export is streamed instead.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CatalogExport {
+
+  private static final Logger logger = LoggerFactory.getLogger(CatalogExport.class);
+
+  private static final int FLUSH_EVERY = 1000;
+
+  private final ProductRepository productRepo;
+  private final EntityManager entityManager;
+  private final TransactionTemplate readOnlyTransaction;
+  private final ObjectMapper objectMapper;
+  private final ObjectWriter productWriter;
+  private final CatalogVersion catalogVersion;
+  private final long rebuildDelayMs;
+  private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "catalog-export-snapshot");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+  private volatile boolean requested;
+  private volatile GzippedSnapshot snapshot;
+
+  private record GzippedSnapshot(long version, byte[] bytes) {}
+
+  public CatalogExport(ProductRepository productRepo,
+                       EntityManager entityManager,
+                       PlatformTransactionManager transactionManager,
+                       ObjectMapper objectMapper,
+                       CatalogVersion catalogVersion,
+                       @Value("${app.catalog.snapshots.rebuild-delay-ms:100}") long rebuildDelayMs,
+                       MeterRegistry meterRegistry) {
+    this.productRepo = productRepo;
+    this.entityManager = entityManager;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.objectMapper = objectMapper;
+    this.productWriter = objectMapper.writerFor(Product.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    this.catalogVersion = catalogVersion;
+    this.rebuildDelayMs = rebuildDelayMs;
+    Gauge.builder("catalog.export.snapshot.size", this, export -> {
+          GzippedSnapshot current = export.snapshot;
+          return current != null ? current.bytes().length : 0;
+        })
+        .description("Bytes of the gzipped catalog export snapshot")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  /**
+   * The gzipped export of the current catalog version, or null when the copy is behind; a rebuild is then
+   * under way.
+   */
+  public byte[] gzippedSnapshot() {
+    requested = true;
+    GzippedSnapshot current = snapshot;
+    if (current != null && current.version() == catalogVersion.current().version()) {
+      return current.bytes();
+    }
+    scheduleRebuild();
+    return null;
+  }
+
+  /**
+   * Streams the export to {@code out} in its own read-only transaction.
+   */
+  public void write(OutputStream out) {
+    readOnlyTransaction.executeWithoutResult(status -> writeCatalog(out));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogChange(CatalogChangeEvent event) {
+    if (requested) {
+      scheduleRebuild();
+    }
+  }
+
+  @EventListener(ContextClosedEvent.class)
+  public void shutdown() {
+    rebuilder.shutdownNow();
+  }
+
+  private void scheduleRebuild() {
+    // Changes committed in quick succession share one rebuild
+    if (rebuildPending.compareAndSet(false, true)) {
+      try {
+        rebuilder.schedule(this::rebuild, rebuildDelayMs, TimeUnit.MILLISECONDS);
+      } catch (RuntimeException e) {
+        // Shutting down
+        rebuildPending.set(false);
+      }
+    }
+  }
+
+  private void rebuild() {
+    // A change committed from here on schedules the next rebuild
+    rebuildPending.set(false);
+    long version = catalogVersion.current().version();
+    try {
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+      // Kept under the current version, so it must not come from a lagging replica
+      ReplicaRoutingDataSource.readFromPrimary(() -> {
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed, 64 * 1024)) {
+          write(out);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        return null;
+      });
+      snapshot = new GzippedSnapshot(version, compressed.toByteArray());
+    } catch (RuntimeException e) {
+      logger.warn("Could not rebuild the gzipped catalog export", e);
+    }
+  }
+
+  private void writeCatalog(OutputStream out) {
+    try (Stream<Product> products = productRepo.streamAll();
+         JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.setRootValueSeparator(null);
+
+      long written = 0;
+      Iterator<Product> rows = products.iterator();
+      while (rows.hasNext()) {
+        Product product = rows.next();
+        productWriter.writeValue(generator, product);
+        generator.writeRaw('\n');
+        // Drop the row from the persistence context so it can be garbage collected
+        entityManager.detach(product);
+
+        written++;
+        if (written == 1 || written % FLUSH_EVERY == 0) {
+          generator.flush();
+        }
+      }
+      generator.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
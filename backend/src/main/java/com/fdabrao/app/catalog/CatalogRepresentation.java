@@ -0,0 +1,98 @@
+package com.fdabrao.app.catalog;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * The formats catalog responses are available in, in order of preference when the client accepts several
+ * equally. Each one has its own ETag, since the bodies differ byte for byte; so does each one sent gzipped.
+ */
+public enum CatalogRepresentation {
+
+  JSON(MediaType.APPLICATION_JSON, ""),
+  SMILE(new MediaType("application", "x-jackson-smile"), "-smile"),
+  CBOR(MediaType.APPLICATION_CBOR, "-cbor");
+
+  private final MediaType mediaType;
+  private final String etagSuffix;
+
+  CatalogRepresentation(MediaType mediaType, String etagSuffix) {
+    this.mediaType = mediaType;
+    this.etagSuffix = etagSuffix;
+  }
+
+  public MediaType mediaType() {
+    return mediaType;
+  }
+
+  /**
+   * The catalog ETag of this representation; JSON keeps the plain one.
+   */
+  public String etag(String catalogEtag) {
+    if (etagSuffix.isEmpty()) {
+      return catalogEtag;
+    }
+    return catalogEtag.substring(0, catalogEtag.length() - 1) + etagSuffix + "\"";
+  }
+
+  /**
+   * The ETag of the gzipped body whose identity form has {@code etag}.
+   */
+  public static String gzipped(String etag) {
+    return etag.substring(0, etag.length() - 1) + "-gz\"";
+  }
+
+  /**
+   * The tag in If-None-Match values that names {@code etag}, sent either plain or gzipped, compared weakly;
+   * null when none does. A client holding either encoding of a body has a current copy.
+   */
+  public static String matchingEtag(Collection<String> ifNoneMatch, String etag) {
+    String gzipped = gzipped(etag);
+    for (String header : ifNoneMatch) {
+      for (String tag : header.split(",")) {
+        tag = tag.trim();
+        if (tag.equals("*")) {
+          return etag;
+        }
+        String opaque = tag.startsWith("W/") ? tag.substring(2) : tag;
+        if (opaque.equals(etag) || opaque.equals(gzipped)) {
+          return tag;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * The representation for an Accept header, picked the way Spring MVC picks a message converter:
+   * highest quality first, then header order, then the order above. Null when none is acceptable.
+   */
+  public static CatalogRepresentation negotiate(String accept) {
+    if (accept == null || accept.isBlank()) {
+      return JSON;
+    }
+    List<MediaType> acceptable;
+    try {
+      acceptable = MediaType.parseMediaTypes(accept);
+    } catch (InvalidMediaTypeException e) {
+      return null;
+    }
+    acceptable = acceptable.stream()
+        .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+        .toList();
+    for (MediaType mediaType : acceptable) {
+      if (mediaType.getQualityValue() == 0) {
+        break;
+      }
+      for (CatalogRepresentation representation : values()) {
+        if (mediaType.isCompatibleWith(representation.mediaType)) {
+          return representation;
+        }
+      }
+    }
+    return null;
+  }
+}
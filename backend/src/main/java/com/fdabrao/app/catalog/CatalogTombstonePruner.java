@@ -0,0 +1,30 @@
+package com.fdabrao.app.catalog;
+
+import com.fdabrao.app.persistence.ProductRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes tombstones older than the retention period. Clients whose last sync is older than that get
+ * 410 Gone from the delta sync endpoint and reload the catalog.
+ */
+@Component
+public class CatalogTombstonePruner {
+
+  private final ProductRepository productRepo;
+  private final Duration retention;
+
+  public CatalogTombstonePruner(ProductRepository productRepo,
+                                @Value("${app.catalog.tombstone-retention-days:30}") long retentionDays) {
+    this.productRepo = productRepo;
+    this.retention = Duration.ofDays(retentionDays);
+  }
+
+  @Scheduled(fixedDelayString = "${app.catalog.tombstone-prune-interval-ms:3600000}")
+  public void prune() {
+    productRepo.pruneTombstones(LocalDateTime.now().minus(retention));
+  }
+}
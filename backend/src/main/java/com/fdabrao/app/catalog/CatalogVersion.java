@@ -0,0 +1,45 @@
+package com.fdabrao.app.catalog;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Monotonic version of the whole catalog, bumped after every committed product or category change.
+ * Used as a strong validator for conditional GETs: any catalog read taken after the stamp was
+ * captured reflects at least that version.
+ */
+@Component
+public class CatalogVersion {
+
+  // Distinguishes counters of different runs so a restart never revalidates an old ETag
+  private final String instance = Long.toString(System.currentTimeMillis(), 36);
+  private final AtomicReference<Stamp> current;
+
+  public CatalogVersion() {
+    this.current = new AtomicReference<>(stamp(0));
+  }
+
+  public Stamp current() {
+    return current.get();
+  }
+
+  // Runs after the in-process views (category cache, search index) so a new stamp never describes stale data
+  @TransactionalEventListener(fallbackExecution = true)
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onCatalogChange(CatalogChangeEvent event) {
+    current.updateAndGet(previous -> stamp(previous.version() + 1));
+  }
+
+  private Stamp stamp(long version) {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    return new Stamp(version, "\"" + instance + "-" + version + "\"", now.toEpochMilli());
+  }
+
+  public record Stamp(long version, String etag, long lastModified) {
+  }
+}
@@ -0,0 +1,168 @@
+package com.fdabrao.app.catalog;
+
+import com.fdabrao.app.catalog.CatalogChangeEvent.EntityType;
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.persistence.CategoriesRepository;
+import com.fdabrao.app.persistence.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Read-through, in-process copy of the whole category table and its parent to children hierarchy.
+ * Loaded at startup and dropped after any committed category change; the next read reloads it.
+ * Cached entities are shared and must be treated as read-only.
+ */
+@Component
+public class CategoryCache {
+
+  private final CategoriesRepository repo;
+  private final ReentrantLock loadLock = new ReentrantLock();
+  private final AtomicLong generation = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  private volatile Snapshot snapshot;
+
+  public CategoryCache(CategoriesRepository repo, MeterRegistry meterRegistry) {
+    this.repo = repo;
+    FunctionCounter.builder("category.cache.requests", hits, LongAdder::doubleValue)
+        .tag("result", "hit")
+        .description("Category reads served from the in-process cache")
+        .register(meterRegistry);
+    FunctionCounter.builder("category.cache.requests", misses, LongAdder::doubleValue)
+        .tag("result", "miss")
+        .description("Category reads that had to load the cache from the database")
+        .register(meterRegistry);
+    Gauge.builder("category.cache.size", this, cache -> {
+          Snapshot current = cache.snapshot;
+          return current != null ? current.all().size() : 0;
+        })
+        .description("Categories currently held in the cache")
+        .register(meterRegistry);
+  }
+
+  public List<Categories> findAll() {
+    return snapshot().all();
+  }
+
+  public List<Categories> findByActiveTrue() {
+    return snapshot().active();
+  }
+
+  public Optional<Categories> findById(Long id) {
+    return Optional.ofNullable(snapshot().byId().get(id));
+  }
+
+  public Optional<Categories> findByName(String name) {
+    return Optional.ofNullable(snapshot().byName().get(name));
+  }
+
+  public List<Categories> findByParentCategory(String parentCategory) {
+    return snapshot().childrenByParent().getOrDefault(parentCategory, List.of());
+  }
+
+  // Resolve several categories at once, skipping ids that do not exist
+  public Map<Long, Categories> findAllById(Collection<Long> ids) {
+    Map<Long, Categories> byId = snapshot().byId();
+    return ids.stream()
+        .filter(Objects::nonNull)
+        .map(byId::get)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toMap(Categories::getId, Function.identity(), (a, b) -> a));
+  }
+
+  public void invalidate() {
+    generation.incrementAndGet();
+    snapshot = null;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    snapshot();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onCatalogChange(CatalogChangeEvent event) {
+    if (event.entityType() == EntityType.CATEGORY) {
+      invalidate();
+    }
+  }
+
+  private Snapshot snapshot() {
+    Snapshot current = snapshot;
+    if (current != null) {
+      hits.increment();
+      return current;
+    }
+    loadLock.lock();
+    try {
+      current = snapshot;
+      if (current != null) {
+        hits.increment();
+        return current;
+      }
+      misses.increment();
+      long loadedGeneration = generation.get();
+      // The snapshot outlives this request, so it must not be read from a lagging replica
+      current = Snapshot.of(ReplicaRoutingDataSource.readFromPrimary(repo::findAll));
+      // Only publish the result if no invalidation raced with the load
+      if (generation.get() == loadedGeneration) {
+        snapshot = current;
+      }
+      return current;
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  private record Snapshot(
+      List<Categories> all,
+      List<Categories> active,
+      Map<Long, Categories> byId,
+      Map<String, Categories> byName,
+      Map<String, List<Categories>> childrenByParent) {
+
+    static Snapshot of(List<Categories> categories) {
+      List<Categories> all = categories.stream()
+          .sorted(Comparator.comparing(Categories::getId))
+          .toList();
+      List<Categories> active = all.stream()
+          .filter(category -> Boolean.TRUE.equals(category.getActive()))
+          .toList();
+      Map<Long, Categories> byId = new HashMap<>();
+      Map<String, Categories> byName = new HashMap<>();
+      Map<String, List<Categories>> childrenByParent = new HashMap<>();
+      for (Categories category : all) {
+        byId.put(category.getId(), category);
+        byName.put(category.getName(), category);
+        if (category.getParentCategory() != null) {
+          childrenByParent.computeIfAbsent(category.getParentCategory(), parent -> new ArrayList<>())
+              .add(category);
+        }
+      }
+      childrenByParent.replaceAll((parent, children) -> List.copyOf(children));
+      return new Snapshot(all, active, Map.copyOf(byId), Map.copyOf(byName), Map.copyOf(childrenByParent));
+    }
+  }
+}
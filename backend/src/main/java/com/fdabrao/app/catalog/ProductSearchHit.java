@@ -0,0 +1,18 @@
+package com.fdabrao.app.catalog;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fdabrao.app.model.PriceJson;
+
+/**
+ * One ranked result of a product search, served entirely from the in-memory index.
+ */
+public record ProductSearchHit(
+    Long id,
+    String name,
+    String description,
+    @JsonSerialize(using = PriceJson.Serializer.class) long price,
+    Boolean available,
+    Long categoryId,
+    String categoryName,
+    double score) {
+}
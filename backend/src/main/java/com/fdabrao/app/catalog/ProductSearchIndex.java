@@ -0,0 +1,538 @@
+package com.fdabrao.app.catalog;
+
+import com.fdabrao.app.catalog.CatalogChangeEvent.ChangeType;
+import com.fdabrao.app.catalog.CatalogChangeEvent.EntityType;
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.persistence.ProductRepository;
+import jakarta.persistence.EntityManager;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory inverted index over product names and descriptions.
+ * Built from the database at startup and kept current from committed {@link CatalogChangeEvent}s.
+ * Every query term is prefix-matched against the sorted term dictionary; a product must match
+ * all terms and is ranked by field-weighted, IDF-scaled term frequency. Scoring state is allocated per
+ * query and sized to the rarest term's postings, not to the whole index.
+ */
+@Component
+public class ProductSearchIndex {
+
+  private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+  private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+  private static final int NAME_WEIGHT = 3;
+  private static final int DESCRIPTION_WEIGHT = 1;
+  // Shorter query terms only match whole indexed terms
+  private static final int MIN_PREFIX_LENGTH = 2;
+  // Upper bound on dictionary terms a single prefix may expand to
+  private static final int MAX_PREFIX_EXPANSIONS = 200;
+  private static final float PREFIX_MATCH_FACTOR = 0.8f;
+
+  private final ProductRepository productRepo;
+  private final EntityManager entityManager;
+  private final TransactionTemplate readOnlyTransaction;
+  private final CategoryCache categoryCache;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final NavigableMap<String, Postings> postings = new TreeMap<>();
+  // Documents are addressed by a dense ordinal so postings and scoring can use primitive arrays
+  private final Map<Long, Integer> ordinals = new HashMap<>();
+  private IndexedProduct[] documents = new IndexedProduct[1024];
+  private int nextOrdinal;
+  private int[] freeOrdinals = new int[64];
+  private int freeCount;
+
+  // Ids written while the initial build was running; the build must not overwrite them
+  private Set<Long> changedDuringBuild;
+
+  public ProductSearchIndex(ProductRepository productRepo,
+                            EntityManager entityManager,
+                            PlatformTransactionManager transactionManager,
+                            CategoryCache categoryCache) {
+    this.productRepo = productRepo;
+    this.entityManager = entityManager;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.categoryCache = categoryCache;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    lock.writeLock().lock();
+    try {
+      postings.clear();
+      ordinals.clear();
+      documents = new IndexedProduct[1024];
+      nextOrdinal = 0;
+      freeCount = 0;
+      changedDuringBuild = new HashSet<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    long started = System.nanoTime();
+    readOnlyTransaction.executeWithoutResult(status -> {
+      try (Stream<Product> products = productRepo.streamAll()) {
+        products.forEach(product -> {
+          IndexedProduct document = IndexedProduct.of(product);
+          entityManager.detach(product);
+          lock.writeLock().lock();
+          try {
+            if (!changedDuringBuild.contains(document.id())) {
+              put(document);
+            }
+          } finally {
+            lock.writeLock().unlock();
+          }
+        });
+      }
+    });
+
+    lock.writeLock().lock();
+    try {
+      changedDuringBuild = null;
+      logger.info("Indexed {} products in {} ms", ordinals.size(), (System.nanoTime() - started) / 1_000_000);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onCatalogChange(CatalogChangeEvent event) {
+    if (event.entityType() != EntityType.PRODUCT || event.id() == null) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      if (changedDuringBuild != null) {
+        changedDuringBuild.add(event.id());
+      }
+      if (event.changeType() == ChangeType.DELETED) {
+        remove(event.id());
+      } else {
+        put((Product) event.entity());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public List<ProductSearchHit> search(String query, int limit) {
+    List<String> terms = tokenize(query).distinct().toList();
+    if (terms.isEmpty()) {
+      return List.of();
+    }
+
+    lock.readLock().lock();
+    try {
+      List<List<Map.Entry<String, Postings>>> matches = new ArrayList<>(terms.size());
+      int[] frequencies = new int[terms.size()];
+      for (int i = 0; i < terms.size(); i++) {
+        List<Map.Entry<String, Postings>> termMatches = expand(terms.get(i));
+        if (termMatches.isEmpty()) {
+          return List.of();
+        }
+        matches.add(termMatches);
+        frequencies[i] = termMatches.stream().mapToInt(match -> match.getValue().live).sum();
+      }
+
+      // Start from the rarest term: its matches bound the candidate set for every later term
+      Integer[] order = new Integer[terms.size()];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, Comparator.comparingInt(i -> frequencies[i]));
+      Candidates candidates = new Candidates(frequencies[order[0]]);
+      for (int pass = 0; pass < order.length && (pass == 0 || candidates.remaining > 0); pass++) {
+        scoreTerm(terms.get(order[pass]), matches.get(order[pass]), pass, candidates);
+      }
+      return topHits(candidates, terms.size(), limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return ordinals.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // Dictionary terms a query term matches: all terms it prefixes, or only itself when very short
+  private List<Map.Entry<String, Postings>> expand(String term) {
+    if (term.length() < MIN_PREFIX_LENGTH) {
+      Postings exact = postings.get(term);
+      return exact != null ? List.of(Map.entry(term, exact)) : List.of();
+    }
+    List<Map.Entry<String, Postings>> expansions = new ArrayList<>();
+    for (Map.Entry<String, Postings> entry : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+      if (expansions.size() == MAX_PREFIX_EXPANSIONS) {
+        break;
+      }
+      expansions.add(entry);
+    }
+    return expansions;
+  }
+
+  /**
+   * Adds one query term's score to every candidate that matched all previous terms.
+   * A product's score for a term is its best match across the term's expansions.
+   */
+  private void scoreTerm(String term, List<Map.Entry<String, Postings>> expansions, int pass, Candidates candidates) {
+    int documentCount = ordinals.size();
+    for (Map.Entry<String, Postings> expansion : expansions) {
+      Postings postingList = expansion.getValue();
+      float idf = (float) Math.log(1.0 + (double) documentCount / postingList.live);
+      float factor = expansion.getKey().equals(term) ? 1.0f : PREFIX_MATCH_FACTOR;
+      if (pass > 0 && postingList.prefersLookups(candidates.remaining)) {
+        // Few candidates left against a long list: look each one up instead of walking the list
+        for (int c = 0; c < candidates.count; c++) {
+          if (candidates.matchedTerms[c] == pass) {
+            int i = postingList.indexOf(candidates.ordinals[c]);
+            if (i >= 0) {
+              candidates.offer(c, postingList.weights[i] * idf * factor);
+            }
+          }
+        }
+        continue;
+      }
+      int[] ords = postingList.ordinals;
+      float[] weights = postingList.weights;
+      for (int i = 0; i < postingList.size; i++) {
+        if (weights[i] == 0f) {
+          continue;
+        }
+        int c = pass == 0 ? candidates.add(ords[i]) : candidates.indexOf(ords[i]);
+        if (c >= 0 && candidates.matchedTerms[c] == pass) {
+          candidates.offer(c, weights[i] * idf * factor);
+        }
+      }
+    }
+    candidates.endTerm(pass);
+  }
+
+  private List<ProductSearchHit> topHits(Candidates candidates, int termCount, int limit) {
+    int[] bestOrds = new int[limit];
+    float[] bestScores = new float[limit];
+    int found = 0;
+    for (int c = 0; c < candidates.count; c++) {
+      if (candidates.matchedTerms[c] != termCount) {
+        continue;
+      }
+      int ord = candidates.ordinals[c];
+      float score = candidates.scores[c];
+      if (found == limit && !ranksBefore(score, ord, bestScores[limit - 1], bestOrds[limit - 1])) {
+        continue;
+      }
+      // Insertion into the small sorted top-k arrays
+      int position = found < limit ? found++ : limit - 1;
+      while (position > 0 && ranksBefore(score, ord, bestScores[position - 1], bestOrds[position - 1])) {
+        bestScores[position] = bestScores[position - 1];
+        bestOrds[position] = bestOrds[position - 1];
+        position--;
+      }
+      bestScores[position] = score;
+      bestOrds[position] = ord;
+    }
+
+    List<ProductSearchHit> hits = new ArrayList<>(found);
+    for (int i = 0; i < found; i++) {
+      hits.add(toHit(documents[bestOrds[i]], bestScores[i]));
+    }
+    return hits;
+  }
+
+  // Higher score first; ties go to the lower product id for a stable order
+  private boolean ranksBefore(float score, int ord, float otherScore, int otherOrd) {
+    if (score != otherScore) {
+      return score > otherScore;
+    }
+    return documents[ord].id() < documents[otherOrd].id();
+  }
+
+  private ProductSearchHit toHit(IndexedProduct document, double score) {
+    // Category names are resolved at query time so renames show up without reindexing
+    String categoryName = document.categoryId() != null
+        ? categoryCache.findById(document.categoryId()).map(Categories::getName).orElse(null)
+        : null;
+    return new ProductSearchHit(
+        document.id(),
+        document.name(),
+        document.description(),
+        document.price(),
+        document.available(),
+        document.categoryId(),
+        categoryName,
+        score);
+  }
+
+  private void put(Product product) {
+    Integer ord = ordinals.get(product.getId());
+    if (ord != null && documents[ord].hasSameText(product)) {
+      // Only price, availability or category changed, so the postings stay as they are
+      documents[ord] = documents[ord].withDetails(product);
+      return;
+    }
+    put(IndexedProduct.of(product));
+  }
+
+  private void put(IndexedProduct document) {
+    remove(document.id());
+    int ord = freeCount > 0 ? freeOrdinals[--freeCount] : nextOrdinal++;
+    if (ord == documents.length) {
+      documents = Arrays.copyOf(documents, documents.length * 2);
+    }
+    documents[ord] = document;
+    ordinals.put(document.id(), ord);
+    document.termWeights().forEach((term, weight) ->
+        postings.computeIfAbsent(term, t -> new Postings()).add(ord, weight));
+  }
+
+  private void remove(Long id) {
+    Integer ord = ordinals.remove(id);
+    if (ord == null) {
+      return;
+    }
+    IndexedProduct previous = documents[ord];
+    documents[ord] = null;
+    for (String term : previous.termWeights().keySet()) {
+      Postings postingList = postings.get(term);
+      if (postingList != null && postingList.remove(ord) && postingList.live == 0) {
+        postings.remove(term);
+      }
+    }
+    if (freeCount == freeOrdinals.length) {
+      freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+    }
+    freeOrdinals[freeCount++] = ord;
+  }
+
+  static Stream<String> tokenize(String text) {
+    if (text == null || text.isBlank()) {
+      return Stream.empty();
+    }
+    String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+    return NON_WORD.splitAsStream(normalized.toLowerCase(Locale.ROOT))
+        .filter(token -> !token.isEmpty());
+  }
+
+  private record IndexedProduct(
+      Long id,
+      String name,
+      String description,
+      long price,
+      Boolean available,
+      Long categoryId,
+      Map<String, Integer> termWeights) {
+
+    static IndexedProduct of(Product product) {
+      Map<String, Integer> termWeights = new HashMap<>();
+      tokenize(product.getName()).forEach(term -> termWeights.merge(term, NAME_WEIGHT, Integer::sum));
+      tokenize(product.getDescription()).forEach(term -> termWeights.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+      return new IndexedProduct(
+          product.getId(),
+          product.getName(),
+          product.getDescription(),
+          product.getPrice(),
+          product.getAvailable(),
+          product.getCategory() != null ? product.getCategory().getId() : null,
+          Map.copyOf(termWeights));
+    }
+
+    boolean hasSameText(Product product) {
+      return Objects.equals(name, product.getName()) && Objects.equals(description, product.getDescription());
+    }
+
+    IndexedProduct withDetails(Product product) {
+      return new IndexedProduct(
+          id,
+          name,
+          description,
+          product.getPrice(),
+          product.getAvailable(),
+          product.getCategory() != null ? product.getCategory().getId() : null,
+          termWeights);
+    }
+  }
+
+  /**
+   * Posting list of document ordinals in ascending order and their term weights. A removal only zeroes the
+   * weight, found by binary search; the list is compacted once such tombstones make up half of it. An ordinal
+   * freed and reused for the same term revives its tombstone in place.
+   */
+  private static final class Postings {
+    int[] ordinals = new int[4];
+    float[] weights = new float[4];
+    // Entries including tombstones, and entries with a weight
+    int size;
+    int live;
+
+    void add(int ord, int weight) {
+      int index = size == 0 || ordinals[size - 1] < ord ? -(size + 1) : Arrays.binarySearch(ordinals, 0, size, ord);
+      if (index >= 0) {
+        if (weights[index] == 0f) {
+          live++;
+        }
+        weights[index] = weight;
+        return;
+      }
+      int at = -(index + 1);
+      if (size == ordinals.length) {
+        ordinals = Arrays.copyOf(ordinals, size * 2);
+        weights = Arrays.copyOf(weights, size * 2);
+      }
+      System.arraycopy(ordinals, at, ordinals, at + 1, size - at);
+      System.arraycopy(weights, at, weights, at + 1, size - at);
+      ordinals[at] = ord;
+      weights[at] = weight;
+      size++;
+      live++;
+    }
+
+    boolean remove(int ord) {
+      int index = indexOf(ord);
+      if (index < 0) {
+        return false;
+      }
+      weights[index] = 0f;
+      live--;
+      if (live > 0 && size - live > live) {
+        compact();
+      }
+      return true;
+    }
+
+    // Index of a live entry for the ordinal, or -1
+    int indexOf(int ord) {
+      int index = Arrays.binarySearch(ordinals, 0, size, ord);
+      return index >= 0 && weights[index] != 0f ? index : -1;
+    }
+
+    // Whether binary searches for this many ordinals cost less than walking the list
+    boolean prefersLookups(int lookups) {
+      return (long) lookups * (32 - Integer.numberOfLeadingZeros(size)) < size;
+    }
+
+    private void compact() {
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        if (weights[i] != 0f) {
+          ordinals[kept] = ordinals[i];
+          weights[kept] = weights[i];
+          kept++;
+        }
+      }
+      size = kept;
+      if (ordinals.length > 16 && size < ordinals.length / 4) {
+        ordinals = Arrays.copyOf(ordinals, ordinals.length / 2);
+        weights = Arrays.copyOf(weights, weights.length / 2);
+      }
+    }
+  }
+
+  /**
+   * Scoring state of one query: the products matching the first (rarest) term, in a small open-addressing
+   * table from ordinal to a dense candidate slot. Later terms can only narrow the set, so its size is known
+   * up front.
+   */
+  private static final class Candidates {
+    final int[] ordinals;
+    final float[] scores;
+    final int[] matchedTerms;
+    private final float[] termBest;
+    // Slot + 1 per hash bucket, 0 when empty
+    private final int[] table;
+    private final int shift;
+    int count;
+    // Candidates that matched every term so far
+    int remaining;
+
+    Candidates(int maxCount) {
+      int bits = Math.max(2, 33 - Integer.numberOfLeadingZeros(Math.max(1, maxCount)));
+      table = new int[1 << bits];
+      shift = 32 - bits;
+      ordinals = new int[maxCount];
+      scores = new float[maxCount];
+      matchedTerms = new int[maxCount];
+      termBest = new float[maxCount];
+    }
+
+    int indexOf(int ord) {
+      int mask = table.length - 1;
+      for (int bucket = hash(ord); table[bucket] != 0; bucket = (bucket + 1) & mask) {
+        if (ordinals[table[bucket] - 1] == ord) {
+          return table[bucket] - 1;
+        }
+      }
+      return -1;
+    }
+
+    int add(int ord) {
+      int mask = table.length - 1;
+      int bucket = hash(ord);
+      for (; table[bucket] != 0; bucket = (bucket + 1) & mask) {
+        if (ordinals[table[bucket] - 1] == ord) {
+          return table[bucket] - 1;
+        }
+      }
+      ordinals[count] = ord;
+      table[bucket] = ++count;
+      return count - 1;
+    }
+
+    void offer(int slot, float score) {
+      if (score > termBest[slot]) {
+        termBest[slot] = score;
+      }
+    }
+
+    // Adds each candidate's best score for the term; those without one drop out
+    void endTerm(int pass) {
+      remaining = 0;
+      for (int c = 0; c < count; c++) {
+        if (matchedTerms[c] == pass && termBest[c] > 0f) {
+          scores[c] += termBest[c];
+          termBest[c] = 0f;
+          matchedTerms[c] = pass + 1;
+          remaining++;
+        }
+      }
+    }
+
+    private int hash(int ord) {
+      return (ord * 0x9E3779B9) >>> shift;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.fdabrao.app.config;
+
+import com.fdabrao.app.catalog.CatalogRepresentation;
+import com.fdabrao.app.catalog.CatalogVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Answers conditional GETs on catalog endpoints from {@link CatalogVersion} alone.
+ * A matching If-None-Match or If-Modified-Since ends the request with 304 before the handler
+ * runs, so nothing is queried or serialized. Otherwise the validators are added to the response.
+ * Each {@link CatalogRepresentation} gets its own ETag, so a cached JSON body never validates a CBOR one.
+ * Gzipped bodies carry it with a coding suffix; If-None-Match accepts both forms.
+ */
+public class CatalogConditionalRequestInterceptor implements HandlerInterceptor {
+
+    // Browsers may keep catalog responses but must revalidate them on every use
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private final CatalogVersion catalogVersion;
+
+    public CatalogConditionalRequestInterceptor(CatalogVersion catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        // Captured before the handler reads anything, so the body is never older than its ETag
+        CatalogVersion.Stamp stamp = catalogVersion.current();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        CatalogRepresentation representation = CatalogRepresentation.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        String etag = representation != null ? representation.etag(stamp.etag()) : stamp.etag();
+        String matching = CatalogRepresentation.matchingEtag(
+                Collections.list(request.getHeaders(HttpHeaders.IF_NONE_MATCH)), etag);
+        if (matching != null) {
+            response.setHeader(HttpHeaders.ETAG, matching);
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, stamp.lastModified());
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        return !new ServletWebRequest(request, response).checkNotModified(etag, stamp.lastModified());
+    }
+}
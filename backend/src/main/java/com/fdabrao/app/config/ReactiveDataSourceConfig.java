@@ -0,0 +1,63 @@
+package com.fdabrao.app.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * R2DBC access for the reactive catalog read path. By default it connects to the same database as
+ * {@code spring.datasource.url}; set {@code app.reactive.r2dbc.url} to read from a replica instead.
+ * <p>
+ * Only the {@link DatabaseClient} is a bean: a ConnectionFactory bean would make Boot run the schema scripts
+ * and transactions over R2DBC as well, and both stay with the JDBC DataSource.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDataSourceConfig implements DisposableBean {
+
+    private final ConnectionPool pool;
+
+    public ReactiveDataSourceConfig(
+            @Value("${app.reactive.r2dbc.url:}") String url,
+            @Value("${spring.datasource.url}") String jdbcUrl,
+            @Value("${app.reactive.r2dbc.username:${spring.datasource.username}}") String username,
+            @Value("${app.reactive.r2dbc.password:${spring.datasource.password}}") String password,
+            @Value("${app.reactive.r2dbc.pool-size:20}") int poolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url.isBlank() ? toR2dbcUrl(jdbcUrl) : url)
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("reactive-catalog")
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        return DatabaseClient.create(pool);
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+
+    // jdbc:postgresql://host:port/db?params -> r2dbc:postgresql://host:port/db; the parameters are JDBC driver options
+    static String toR2dbcUrl(String jdbcUrl) {
+        if (!jdbcUrl.startsWith("jdbc:")) {
+            throw new IllegalArgumentException("Not a JDBC URL: " + jdbcUrl);
+        }
+        int query = jdbcUrl.indexOf('?');
+        return "r2dbc:" + jdbcUrl.substring("jdbc:".length(), query >= 0 ? query : jdbcUrl.length());
+    }
+}
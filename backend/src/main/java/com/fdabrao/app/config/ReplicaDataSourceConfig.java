@@ -0,0 +1,92 @@
+package com.fdabrao.app.config;
+
+import com.fdabrao.app.catalog.CatalogChangeEvent;
+import com.fdabrao.app.persistence.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Replaces the single pooled DataSource with {@link ReplicaRoutingDataSource} when replica URLs are
+ * configured. The primary pool keeps the {@code spring.datasource.*} settings; each replica gets a small
+ * read-only pool of its own. Without replicas the application uses the auto-configured DataSource as before.
+ */
+@Configuration
+@ConditionalOnExpression("!'${app.datasource.replicas.urls:}'.isBlank()")
+public class ReplicaDataSourceConfig implements WebMvcConfigurer {
+
+    private final ReadYourWritesInterceptor readYourWrites;
+    private final ObjectProvider<ReplicaRoutingDataSource> routingDataSource;
+
+    public ReplicaDataSourceConfig(
+            @Value("${app.datasource.replicas.read-your-writes-window-ms:5000}") long readYourWritesWindowMs,
+            ObjectProvider<ReplicaRoutingDataSource> routingDataSource) {
+        this.readYourWrites = new ReadYourWritesInterceptor(Duration.ofMillis(readYourWritesWindowMs));
+        this.routingDataSource = routingDataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource dataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            @Value("${app.datasource.replicas.urls}") String[] urls,
+            @Value("${app.datasource.replicas.username:${spring.datasource.username}}") String username,
+            @Value("${app.datasource.replicas.password:${spring.datasource.password}}") String password,
+            @Value("${app.datasource.replicas.pool-size:10}") int poolSize,
+            @Value("${app.datasource.replicas.max-lag-ms:1000}") long maxLagMs,
+            MeterRegistry meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            // Fail over to the primary quickly, and start even while a replica is down
+            replica.setConnectionTimeout(2000);
+            replica.setInitializationFailTimeout(-1);
+            // Only the primary is a bean, so the replica pools are not picked up by the pool metrics on their own
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(
+                primary, replicas, readYourWrites::currentUserWroteRecently, maxLagMs, meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(readYourWrites);
+    }
+
+    // Runs before CatalogVersion moves on, so no catalog response carries the new ETag with replica data
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        routingDataSource.getObject().primaryWritten();
+    }
+}
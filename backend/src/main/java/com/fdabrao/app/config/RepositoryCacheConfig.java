@@ -0,0 +1,120 @@
+package com.fdabrao.app.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fdabrao.app.catalog.CatalogChangeEvent;
+import com.fdabrao.app.catalog.CatalogChangeRelay;
+import com.fdabrao.app.catalog.CatalogChangeEvent.ChangeType;
+import com.fdabrao.app.catalog.CatalogChangeEvent.EntityType;
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.model.UserAccount;
+import com.fdabrao.app.persistence.CategoriesRepository;
+import com.fdabrao.app.persistence.ProductRepository;
+import com.fdabrao.app.persistence.TwoLevelCacheManager;
+import com.fdabrao.app.persistence.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Caches products and categories by id and user accounts by username, see {@link TwoLevelCacheManager}. Without
+ * {@code app.cache.redis.url} each node only has its near-cache; with it, nodes share a Redis tier and evict
+ * each other's near copies through {@code app.cache.redis.channel}, over which {@link CatalogChangeRelay} also
+ * carries catalog changes so the node-local catalog views follow writes made on other nodes.
+ */
+@Configuration
+@EnableCaching
+public class RepositoryCacheConfig {
+
+    private final ObjectProvider<TwoLevelCacheManager> cacheManager;
+
+    public RepositoryCacheConfig(ObjectProvider<TwoLevelCacheManager> cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(
+            ObjectMapper objectMapper,
+            ObjectProvider<RedisConnectionFactory> sharedTier,
+            @Value("${app.cache.near.max-size:10000}") long nearMaxSize,
+            @Value("${app.cache.near.ttl-ms:60000}") long nearTtlMs,
+            @Value("${app.cache.redis.ttl-ms:600000}") long sharedTtlMs,
+            @Value("${app.cache.redis.channel:app:cache:invalidations}") String channel,
+            MeterRegistry meterRegistry) {
+        Map<String, Class<?>> valueTypes = Map.of(
+                ProductRepository.CACHE, Product.class,
+                CategoriesRepository.CACHE, Categories.class,
+                UserRepository.CACHE, UserAccount.class);
+        return new TwoLevelCacheManager(valueTypes, objectMapper, nearMaxSize, Duration.ofMillis(nearTtlMs),
+                sharedTier.getIfAvailable(), Duration.ofMillis(sharedTtlMs), channel, meterRegistry);
+    }
+
+    // After commit, so no other request can cache the old row again. Creations are skipped: only rows that
+    // exist are cached. Cached products embed their category and a category write can rename the parent of
+    // others through a trigger, so category changes clear both caches. For remote changes the writing node
+    // already evicted the shared tier and announced it.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (event.remote() || event.changeType() == ChangeType.CREATED || event.id() == null) {
+            return;
+        }
+        TwoLevelCacheManager caches = cacheManager.getObject();
+        if (event.entityType() == EntityType.PRODUCT) {
+            caches.getCache(ProductRepository.CACHE).evict(event.id());
+        } else {
+            caches.getCache(CategoriesRepository.CACHE).clear();
+            caches.getCache(ProductRepository.CACHE).clear();
+        }
+    }
+
+    @Configuration
+    @ConditionalOnExpression("!'${app.cache.redis.url:}'.isBlank()")
+    static class SharedTierConfig {
+
+        @Bean
+        public LettuceConnectionFactory redisConnectionFactory(
+                @Value("${app.cache.redis.url}") String url,
+                @Value("${app.cache.redis.timeout-ms:500}") long timeoutMs) {
+            // A slow cache must not hold requests up for longer than the database would
+            LettuceClientConfiguration client = LettuceClientConfiguration.builder()
+                    .commandTimeout(Duration.ofMillis(timeoutMs))
+                    .build();
+            return new LettuceConnectionFactory(LettuceConnectionFactory.createRedisConfiguration(url), client);
+        }
+
+        @Bean
+        public CatalogChangeRelay catalogChangeRelay(
+                RedisConnectionFactory connectionFactory,
+                @Value("${app.cache.redis.channel:app:cache:invalidations}") String channel,
+                ObjectMapper objectMapper,
+                ApplicationEventPublisher publisher) {
+            return new CatalogChangeRelay(connectionFactory, channel, objectMapper, publisher);
+        }
+
+        @Bean
+        public RedisMessageListenerContainer cacheInvalidationListener(
+                RedisConnectionFactory connectionFactory,
+                TwoLevelCacheManager cacheManager,
+                CatalogChangeRelay catalogChangeRelay,
+                @Value("${app.cache.redis.channel:app:cache:invalidations}") String channel) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            container.addMessageListener(cacheManager, new ChannelTopic(channel));
+            container.addMessageListener(catalogChangeRelay, new ChannelTopic(channel));
+            return container;
+        }
+    }
+}
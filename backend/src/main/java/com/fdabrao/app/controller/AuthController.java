@@ -2,15 +2,21 @@ package com.fdabrao.app.controller;
 
 import com.fdabrao.app.model.User;
 import com.fdabrao.app.persistence.UserRepository;
+import com.fdabrao.app.security.AccountUserDetails;
 import com.fdabrao.app.security.JwtTokenUtil;
+import com.fdabrao.app.security.LastLoginRecorder;
+import com.fdabrao.app.security.PasswordHashingBusyException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -21,6 +27,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/auth")
 public class AuthController {
 
@@ -29,17 +36,20 @@ public class AuthController {
   private final UserDetailsService userDetailsService;
   private final JwtTokenUtil jwtTokenUtil;
   private final PasswordEncoder passwordEncoder;
+  private final LastLoginRecorder lastLoginRecorder;
 
   public AuthController(UserRepository userRepository,
                         AuthenticationManager authenticationManager,
                         UserDetailsService userDetailsService,
                         JwtTokenUtil jwtTokenUtil,
-                        PasswordEncoder passwordEncoder) {
+                        PasswordEncoder passwordEncoder,
+                        LastLoginRecorder lastLoginRecorder) {
     this.userRepository = userRepository;
     this.authenticationManager = authenticationManager;
     this.userDetailsService = userDetailsService;
     this.jwtTokenUtil = jwtTokenUtil;
     this.passwordEncoder = passwordEncoder;
+    this.lastLoginRecorder = lastLoginRecorder;
   }
   
   // Login endpoint
@@ -52,26 +62,29 @@ public class AuthController {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Username and password are required");
     }
     
+    Authentication authentication;
     try {
       // Authenticate the user
-      authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
+      authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
     } catch (BadCredentialsException e) {
       throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials");
+    } catch (InternalAuthenticationServiceException e) {
+      // Unknown users are still checked against a dummy hash, so a full hashing pool surfaces here too
+      if (e.getCause() instanceof PasswordHashingBusyException busy) {
+        throw busy;
+      }
+      throw e;
     }
     
-    // Load user details
-    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+    // The authenticated principal already carries the user row, so no second lookup is needed
+    AccountUserDetails userDetails = (AccountUserDetails) authentication.getPrincipal();
+    User user = userDetails.getAccount();
     
     // Generate JWT token
-    String token = jwtTokenUtil.generateToken(userDetails);
+    String token = jwtTokenUtil.generateToken(userDetails, user.getId());
     
-    // Get the user from repository
-    User user = userRepository.findByUsername(username)
-        .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
-    
-    // Update last login time
-    user.setLastLogin(LocalDateTime.now());
-    userRepository.save(user);
+    // Update last login time in the background
+    lastLoginRecorder.record(user.getId(), LocalDateTime.now());
     
     // Create response with token and user details
     Map<String, Object> response = new HashMap<>();
@@ -111,7 +124,7 @@ public class AuthController {
     
     // Generate JWT token
     UserDetails userDetails = userDetailsService.loadUserByUsername(savedUser.getUsername());
-    String token = jwtTokenUtil.generateToken(userDetails);
+    String token = jwtTokenUtil.generateToken(userDetails, savedUser.getId());
     
     // Create response with token and user details
     Map<String, Object> response = new HashMap<>();
@@ -0,0 +1,19 @@
+package com.fdabrao.app.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Outcome of one item of a bulk request, reported at the item's position in the request body.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+record BatchItemResult(int index, Long id, int status, String message) {
+
+  static BatchItemResult success(int index, Long id, HttpStatus status) {
+    return new BatchItemResult(index, id, status.value(), null);
+  }
+
+  static BatchItemResult failure(int index, Long id, HttpStatus status, String message) {
+    return new BatchItemResult(index, id, status.value(), message);
+  }
+}
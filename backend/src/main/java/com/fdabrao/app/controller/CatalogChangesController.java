@@ -0,0 +1,38 @@
+package com.fdabrao.app.controller;
+
+import com.fdabrao.app.catalog.CatalogChangeFeed;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-Sent Events stream of committed product and category changes. Clients resume with the standard
+ * {@code Last-Event-ID} header (sent by EventSource on reconnect) or {@code ?lastEventId=}; a {@code reset}
+ * event means changes were missed and the catalog has to be reloaded.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CatalogChangesController {
+
+  private final CatalogChangeFeed feed;
+
+  CatalogChangesController(CatalogChangeFeed feed) {
+    this.feed = feed;
+  }
+
+  @GetMapping(value = "/api/catalog/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @PreAuthorize("isAuthenticated()")
+  SseEmitter changes(
+      @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+      @RequestParam(required = false) Long lastEventId) {
+    // Times out with spring.mvc.async.request-timeout; EventSource then reconnects and resumes
+    SseEmitter emitter = new SseEmitter();
+    feed.subscribe(emitter, lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    return emitter;
+  }
+}
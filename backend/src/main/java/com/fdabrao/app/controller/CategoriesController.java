@@ -1,8 +1,19 @@
 package com.fdabrao.app.controller;
 
+import com.fdabrao.app.catalog.CatalogBodyCache;
+import com.fdabrao.app.catalog.CategoryCache;
 import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.CategoryStats;
+import com.fdabrao.app.model.Price;
 import com.fdabrao.app.persistence.CategoriesRepository;
+import com.fdabrao.app.persistence.CategoryStatsRow;
+import com.fdabrao.app.persistence.ProductRepository;
+import java.sql.SQLException;
 import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -12,77 +23,178 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CategoriesController {
 
+  // SQLSTATE the category_resolve_parent trigger raises for a move that would close a cycle
+  private static final String CHECK_VIOLATION = "23514";
+  private static final String UNIQUE_VIOLATION = "23505";
+
   private final CategoriesRepository repo;
+  private final CategoryCache cache;
+  private final ProductRepository productRepo;
+  private final CatalogBodyCache bodyCache;
 
-  CategoriesController(CategoriesRepository repo) {
+  // Reads are served from the category cache; writes go to the repository and invalidate it on commit
+  CategoriesController(CategoriesRepository repo, CategoryCache cache, ProductRepository productRepo,
+                       CatalogBodyCache bodyCache) {
     this.repo = repo;
+    this.cache = cache;
+    this.productRepo = productRepo;
+    this.bodyCache = bodyCache;
   }
 
+  // The most requested catalog list; a snapshot, kept serialized and rebuilt in the background after writes
   @GetMapping("/api/categories")
   @PreAuthorize("isAuthenticated()")
-  List<Categories> getAll(@RequestParam(required = false) Boolean activeOnly) {
+  ResponseEntity<byte[]> getAll(@RequestParam(required = false) Boolean activeOnly,
+                                @RequestHeader HttpHeaders headers) {
     if (activeOnly != null && activeOnly) {
-      return repo.findByActiveTrue();
+      return bodyCache.snapshot("categories?activeOnly", headers, () -> ResponseEntity.ok(cache.findByActiveTrue()));
     }
-    return repo.findAll();
+    return bodyCache.snapshot("categories", headers, () -> ResponseEntity.ok(cache.findAll()));
   }
 
   @GetMapping("/api/categories/{id}")
   @PreAuthorize("isAuthenticated()")
   Categories getById(@PathVariable Long id) {
-    return repo.findById(id)
+    return cache.findById(id)
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found"));
   }
 
+  // Statistics are aggregated by the database; no product entities are loaded
+  @GetMapping("/api/categories/stats")
+  @PreAuthorize("isAuthenticated()")
+  List<CategoryStats> getAllStats() {
+    return productRepo.findCategoryStats().stream()
+        .map(CategoriesController::toStats)
+        .toList();
+  }
+
+  @GetMapping("/api/categories/{id}/stats")
+  @PreAuthorize("isAuthenticated()")
+  CategoryStats getStats(@PathVariable Long id) {
+    return productRepo.findCategoryStats(id)
+        .map(CategoriesController::toStats)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found"));
+  }
+
+  // The category followed by all of its descendants, nearest levels first
+  @GetMapping("/api/categories/{id}/subtree")
+  @PreAuthorize("isAuthenticated()")
+  List<Categories> getSubtree(@PathVariable Long id) {
+    if (cache.findById(id).isEmpty()) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found");
+    }
+    return repo.findSubtree(id);
+  }
+
   @GetMapping("/api/categories/byParent/{parentCategory}")
   @PreAuthorize("isAuthenticated()")
   List<Categories> getByParentCategory(@PathVariable String parentCategory) {
-    return repo.findByParentCategory(parentCategory);
+    return cache.findByParentCategory(parentCategory);
   }
 
   @PostMapping("/api/categories")
   @PreAuthorize("isAuthenticated()")
   ResponseEntity<Categories> create(@RequestBody Categories category) {
     // Check if category name already exists
-    if (repo.findByName(category.getName()).isPresent()) {
+    if (cache.findByName(category.getName()).isPresent()) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Category name already exists");
     }
-    Categories savedCategory = repo.save(category);
+    resolveParentId(category, null);
+    Categories savedCategory;
+    try {
+      savedCategory = repo.save(category);
+    } catch (DataIntegrityViolationException e) {
+      // Created concurrently, or by another node before this one heard of it
+      if (UNIQUE_VIOLATION.equals(sqlState(e))) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Category name already exists");
+      }
+      throw e;
+    }
     return new ResponseEntity<>(savedCategory, HttpStatus.CREATED);
   }
 
   @PutMapping("/api/categories/{id}")
   @PreAuthorize("isAuthenticated()")
   Categories update(@PathVariable Long id, @RequestBody Categories category) {
-    if (!repo.existsById(id)) {
-      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found");
-    }
+    Categories current = cache.findById(id)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found"));
     
     // If name is changed, check that it doesn't conflict with existing categories
-    repo.findByName(category.getName()).ifPresent(existingCategory -> {
+    cache.findByName(category.getName()).ifPresent(existingCategory -> {
       if (!existingCategory.getId().equals(id)) {
         throw new ResponseStatusException(
             HttpStatus.BAD_REQUEST, "Another category with this name already exists");
       }
     });
+
+    resolveParentId(category, current);
     
     category.setId(id); // Ensure ID is set correctly
-    return repo.save(category);
+    try {
+      return repo.save(category);
+    } catch (DataIntegrityViolationException e) {
+      // The database rejects a move below the category itself or any of its descendants, also when two moves race
+      if (CHECK_VIOLATION.equals(sqlState(e))) {
+        throw new ResponseStatusException(
+            HttpStatus.BAD_REQUEST, "A category cannot be placed under itself or its descendants");
+      }
+      if (UNIQUE_VIOLATION.equals(sqlState(e))) {
+        throw new ResponseStatusException(
+            HttpStatus.BAD_REQUEST, "Another category with this name already exists");
+      }
+      throw e;
+    }
   }
 
   @DeleteMapping("/api/categories/{id}")
   @PreAuthorize("isAuthenticated()")
   void delete(@PathVariable Long id) {
-    if (!repo.existsById(id)) {
+    if (cache.findById(id).isEmpty()) {
       throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found");
     }
     repo.deleteById(id);
   }
-} 
\ No newline at end of file
+
+  // Mirrors the database: a newly written parent id wins, otherwise the parent name decides
+  private Long resolveParentId(Categories category, Categories current) {
+    if (category.getParentId() != null
+        && (current == null || !category.getParentId().equals(current.getParentId()))) {
+      if (cache.findById(category.getParentId()).isEmpty()) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Parent category not found");
+      }
+      return category.getParentId();
+    }
+    if (category.getParentCategory() == null) {
+      return null;
+    }
+    return cache.findByName(category.getParentCategory()).map(Categories::getId).orElse(null);
+  }
+
+  private static String sqlState(DataIntegrityViolationException e) {
+    return NestedExceptionUtils.getMostSpecificCause(e) instanceof SQLException sql ? sql.getSQLState() : null;
+  }
+
+  private static CategoryStats toStats(CategoryStatsRow row) {
+    return new CategoryStats(
+        row.getCategoryId(),
+        new CategoryStats.Figures(
+            row.getProductCount(), row.getAvailableCount(),
+            cents(row.getMinPrice()), cents(row.getAvgPrice()), cents(row.getMaxPrice())),
+        new CategoryStats.Figures(
+            row.getTotalProductCount(), row.getTotalAvailableCount(),
+            cents(row.getTotalMinPrice()), cents(row.getTotalAvgPrice()), cents(row.getTotalMaxPrice())));
+  }
+
+  private static long cents(Long price) {
+    return price != null ? price : Price.NONE;
+  }
+}
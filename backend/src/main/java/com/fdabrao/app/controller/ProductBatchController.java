@@ -0,0 +1,202 @@
+package com.fdabrao.app.controller;
+
+import com.fdabrao.app.catalog.CatalogChangeEvent;
+import com.fdabrao.app.catalog.CatalogChangeEvent.ChangeType;
+import com.fdabrao.app.catalog.CatalogChangeEvent.EntityType;
+import com.fdabrao.app.catalog.CategoryCache;
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Price;
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.persistence.ProductRepository;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Bulk product writes. Each request resolves its categories from the category cache, its
+ * existing products with one query and writes through Hibernate JDBC batching. Invalid items are reported
+ * individually and skipped; the valid ones are written in a single transaction.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProductBatchController {
+
+  static final int MAX_BATCH_SIZE = 5000;
+
+  private final ProductRepository productRepo;
+  private final CategoryCache categoryCache;
+  private final ApplicationEventPublisher publisher;
+
+  ProductBatchController(ProductRepository productRepo,
+                         CategoryCache categoryCache,
+                         ApplicationEventPublisher publisher) {
+    this.productRepo = productRepo;
+    this.categoryCache = categoryCache;
+    this.publisher = publisher;
+  }
+
+  @PostMapping("/api/products/batch")
+  @PreAuthorize("isAuthenticated()")
+  @Transactional
+  List<BatchItemResult> createAll(@RequestBody List<Product> products) {
+    checkBatchSize(products);
+    Map<Long, Categories> categories = resolveCategories(products);
+
+    List<BatchItemResult> results = new ArrayList<>(products.size());
+    List<Product> toCreate = new ArrayList<>(products.size());
+    for (int i = 0; i < products.size(); i++) {
+      Product product = products.get(i);
+      String error = validate(product, categories);
+      if (error != null) {
+        results.add(BatchItemResult.failure(i, null, HttpStatus.BAD_REQUEST, error));
+        continue;
+      }
+      product.setId(null);
+      product.setCategory(categoryOf(product, categories));
+      toCreate.add(product);
+      results.add(null);
+    }
+
+    // New entities are persisted without the existence check save() does for detached ones
+    productRepo.saveAll(toCreate);
+
+    int created = 0;
+    for (int i = 0; i < results.size(); i++) {
+      if (results.get(i) == null) {
+        results.set(i, BatchItemResult.success(i, toCreate.get(created++).getId(), HttpStatus.CREATED));
+      }
+    }
+    return results;
+  }
+
+  @PutMapping("/api/products/batch")
+  @PreAuthorize("isAuthenticated()")
+  @Transactional
+  List<BatchItemResult> updateAll(@RequestBody List<Product> products) {
+    checkBatchSize(products);
+    Map<Long, Categories> categories = resolveCategories(products);
+
+    Set<Long> ids = products.stream()
+        .filter(Objects::nonNull)
+        .map(Product::getId)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+    Map<Long, Product> existing = productRepo.findAllById(ids).stream()
+        .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+    List<BatchItemResult> results = new ArrayList<>(products.size());
+    for (int i = 0; i < products.size(); i++) {
+      Product product = products.get(i);
+      if (product == null) {
+        results.add(BatchItemResult.failure(i, null, HttpStatus.BAD_REQUEST, "Product must not be null"));
+        continue;
+      }
+      Product current = product.getId() != null ? existing.get(product.getId()) : null;
+      if (current == null) {
+        results.add(BatchItemResult.failure(i, product.getId(), HttpStatus.NOT_FOUND, "Product not found"));
+        continue;
+      }
+      String error = validate(product, categories);
+      if (error != null) {
+        results.add(BatchItemResult.failure(i, product.getId(), HttpStatus.BAD_REQUEST, error));
+        continue;
+      }
+      // Managed entities are flushed as batched UPDATEs when the transaction commits
+      current.setName(product.getName());
+      current.setDescription(product.getDescription());
+      current.setPrice(product.getPrice());
+      current.setAvailable(product.getAvailable());
+      current.setCategory(categoryOf(product, categories));
+      results.add(BatchItemResult.success(i, current.getId(), HttpStatus.OK));
+    }
+    return results;
+  }
+
+  @DeleteMapping("/api/products/batch")
+  @PreAuthorize("isAuthenticated()")
+  @Transactional
+  List<BatchItemResult> deleteAll(@RequestBody List<Long> ids) {
+    checkBatchSize(ids);
+    Set<Long> existing = new HashSet<>(productRepo.findExistingIds(ids));
+
+    List<BatchItemResult> results = new ArrayList<>(ids.size());
+    for (int i = 0; i < ids.size(); i++) {
+      Long id = ids.get(i);
+      results.add(existing.contains(id)
+          ? BatchItemResult.success(i, id, HttpStatus.NO_CONTENT)
+          : BatchItemResult.failure(i, id, HttpStatus.NOT_FOUND, "Product not found"));
+    }
+    productRepo.deleteAllByIdInBatch(existing);
+    // The bulk delete bypasses entity callbacks, so announce the removals explicitly
+    existing.forEach(id -> publisher.publishEvent(
+        new CatalogChangeEvent(EntityType.PRODUCT, id, ChangeType.DELETED, null)));
+    return results;
+  }
+
+  private static void checkBatchSize(List<?> items) {
+    if (items == null || items.isEmpty()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch must not be empty");
+    }
+    if (items.size() > MAX_BATCH_SIZE) {
+      throw new ResponseStatusException(
+          HttpStatus.PAYLOAD_TOO_LARGE, "Batch must not exceed " + MAX_BATCH_SIZE + " items");
+    }
+  }
+
+  // Resolve every category referenced by the batch in one lookup
+  private Map<Long, Categories> resolveCategories(List<Product> products) {
+    Set<Long> categoryIds = products.stream()
+        .map(ProductBatchController::categoryId)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+    return categoryCache.findAllById(categoryIds);
+  }
+
+  private static String validate(Product product, Map<Long, Categories> categories) {
+    if (product == null) {
+      return "Product must not be null";
+    }
+    if (product.getName() == null || product.getName().isBlank()) {
+      return "Name is required";
+    }
+    if (product.getDescription() == null) {
+      return "Description is required";
+    }
+    if (product.getPrice() == Price.NONE) {
+      return "Price is required";
+    }
+    if (product.getAvailable() == null) {
+      return "Available is required";
+    }
+    Long categoryId = categoryId(product);
+    if (categoryId != null && !categories.containsKey(categoryId)) {
+      return "Referenced category not found";
+    }
+    return null;
+  }
+
+  private static Long categoryId(Product product) {
+    return product != null && product.getCategory() != null ? product.getCategory().getId() : null;
+  }
+
+  private static Categories categoryOf(Product product, Map<Long, Categories> categories) {
+    Long categoryId = categoryId(product);
+    return categoryId != null ? categories.get(categoryId) : null;
+  }
+}
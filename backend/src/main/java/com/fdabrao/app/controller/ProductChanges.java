@@ -0,0 +1,18 @@
+package com.fdabrao.app.controller;
+
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.ProductSummary;
+import java.util.List;
+
+/**
+ * Catalog rows written and deleted since a client's last sync. {@code highWaterMark} is the {@code since}
+ * to send next time.
+ */
+record ProductChanges(
+    long since,
+    long highWaterMark,
+    List<ProductSummary> products,
+    List<Long> deletedProductIds,
+    List<Categories> categories,
+    List<Long> deletedCategoryIds) {
+}
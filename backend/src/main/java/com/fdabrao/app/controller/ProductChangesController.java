@@ -0,0 +1,53 @@
+package com.fdabrao.app.controller;
+
+import com.fdabrao.app.persistence.CategoriesRepository;
+import com.fdabrao.app.persistence.ProductRepository;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Incremental sync for clients that keep a copy of the catalog: start with {@code since=0}, then pass the
+ * returned high-water mark. Each call reads only the rows written since, through the change_txid indexes.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProductChangesController {
+
+  private final ProductRepository productRepo;
+  private final CategoriesRepository categoriesRepo;
+
+  ProductChangesController(ProductRepository productRepo, CategoriesRepository categoriesRepo) {
+    this.productRepo = productRepo;
+    this.categoriesRepo = categoriesRepo;
+  }
+
+  @GetMapping("/api/products/changes")
+  @PreAuthorize("isAuthenticated()")
+  @Transactional(readOnly = true)
+  ProductChanges changes(@RequestParam long since) {
+    if (since < productRepo.findSyncHorizon()) {
+      throw new ResponseStatusException(
+          HttpStatus.GONE, "Changes since this mark are no longer kept; reload the catalog");
+    }
+    // Read first: every write below the mark has finished, so the queries below see all of them
+    long until = productRepo.findSettledTransactionMark();
+    if (since >= until) {
+      // Nothing settled yet past the mark (e.g. a replica slightly behind the server that issued it)
+      return new ProductChanges(since, since, List.of(), List.of(), List.of(), List.of());
+    }
+    return new ProductChanges(
+        since,
+        until,
+        productRepo.findSummariesChangedBetween(since, until),
+        productRepo.findDeletedBetween("PRODUCT", since, until),
+        categoriesRepo.findChangedBetween(since, until),
+        productRepo.findDeletedBetween("CATEGORY", since, until));
+  }
+}
@@ -1,38 +1,134 @@
 package com.fdabrao.app.controller;
 
+import com.fdabrao.app.catalog.CatalogBodyCache;
+import com.fdabrao.app.catalog.CategoryCache;
 import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Price;
 import com.fdabrao.app.model.Product;
-import com.fdabrao.app.persistence.CategoriesRepository;
+import com.fdabrao.app.model.ProductSummary;
 import com.fdabrao.app.persistence.ProductRepository;
+import com.fdabrao.app.persistence.ProductSpecifications;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ProductController {
 
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  private static final int MAX_PAGE_SIZE = 500;
+
   private final ProductRepository productRepo;
-  private final CategoriesRepository categoryRepo;
+  private final CategoryCache categoryCache;
+  private final CatalogBodyCache bodyCache;
+  // Only body cache misses query, so only they open a transaction and take a connection
+  private final TransactionTemplate readOnlyTransaction;
 
-  ProductController(ProductRepository productRepo, CategoriesRepository categoryRepo) {
+  ProductController(ProductRepository productRepo, CategoryCache categoryCache, CatalogBodyCache bodyCache,
+                    PlatformTransactionManager transactionManager) {
     this.productRepo = productRepo;
-    this.categoryRepo = categoryRepo;
+    this.categoryCache = categoryCache;
+    this.bodyCache = bodyCache;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
   }
 
+  // Keyset-paginated listing; the cursor for the next page is returned in the X-Next-Cursor header.
+  // Read-only transactions may be served by a replica when replicas are configured.
+  // Pages are kept serialized until the catalog changes, in JSON, Smile or CBOR as the Accept header asks
   @GetMapping("/api/products")
   @PreAuthorize("isAuthenticated()")
-  List<Product> getAll() {
-    return productRepo.findAll();
+  ResponseEntity<byte[]> getAll(
+      @RequestParam(required = false) Long categoryId,
+      @RequestParam(required = false) Boolean available,
+      @RequestParam(required = false) BigDecimal minPrice,
+      @RequestParam(required = false) BigDecimal maxPrice,
+      @RequestParam(defaultValue = "name") String sort,
+      @RequestParam(defaultValue = "asc") String direction,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int limit,
+      @RequestHeader HttpHeaders headers) {
+    String page = "products?categoryId=" + categoryId + "&available=" + available
+        + "&minPrice=" + minPrice + "&maxPrice=" + maxPrice + "&sort=" + sort + "&direction=" + direction
+        + "&cursor=" + cursor + "&limit=" + limit;
+    return bodyCache.respond(page, headers, () -> readOnlyTransaction.execute(
+        status -> findPage(categoryId, available, minPrice, maxPrice, sort, direction, cursor, limit)));
   }
 
+  private ResponseEntity<List<ProductSummary>> findPage(Long categoryId, Boolean available, BigDecimal minPrice,
+                                                        BigDecimal maxPrice, String sort, String direction,
+                                                        String cursor, int limit) {
+    if (!"name".equals(sort) && !"price".equals(sort)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sort must be one of: name, price");
+    }
+    Sort.Direction sortDirection = Sort.Direction.fromOptionalString(direction)
+        .orElseThrow(() -> new ResponseStatusException(
+            HttpStatus.BAD_REQUEST, "Direction must be one of: asc, desc"));
+    if (limit < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be positive");
+    }
+    int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+
+    Specification<Product> spec = Specification
+        .where(ProductSpecifications.inCategory(categoryId))
+        .and(ProductSpecifications.available(available))
+        // Bounds with fractions of a cent are rounded inwards, which selects the same rows
+        .and(ProductSpecifications.priceAtLeast(priceBound("minPrice", minPrice, RoundingMode.CEILING)))
+        .and(ProductSpecifications.priceAtMost(priceBound("maxPrice", maxPrice, RoundingMode.FLOOR)));
+
+    if (cursor != null && !cursor.isBlank()) {
+      ProductCursor after = ProductCursor.decode(cursor, sort);
+      spec = spec.and("price".equals(sort)
+          ? ProductSpecifications.after(sort, sortDirection, after.priceValue(), after.id())
+          : ProductSpecifications.after(sort, sortDirection, after.sortValue(), after.id()));
+    }
+
+    // Fetch one extra row to learn whether another page exists
+    List<ProductSummary> rows = productRepo.findSummaryPage(
+        spec, Sort.by(sortDirection, sort, "id"), pageSize + 1);
+
+    if (rows.size() <= pageSize) {
+      return ResponseEntity.ok(rows);
+    }
+    List<ProductSummary> page = rows.subList(0, pageSize);
+    return ResponseEntity.ok()
+        .header(NEXT_CURSOR_HEADER, ProductCursor.of(sort, page.get(pageSize - 1)).encode())
+        .body(page);
+  }
+
+  // Converts a price filter to cents; bounds beyond the range of cents are a client error, not a server one
+  static Long priceBound(String name, BigDecimal bound, RoundingMode rounding) {
+    if (bound == null) {
+      return null;
+    }
+    try {
+      return Price.ofDecimal(bound, rounding);
+    } catch (ArithmeticException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, name + " is out of range");
+    }
+  }
+
+  // Served from the repository cache; not transactional, so a cache hit does not take a connection
   @GetMapping("/api/products/{id}")
   @PreAuthorize("isAuthenticated()")
   Product getById(@PathVariable Long id) {
@@ -40,13 +136,24 @@ public class ProductController {
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
   }
 
+  // Per-category lists are snapshots: kept serialized and gzipped, and rebuilt in the background after writes
   @GetMapping("/api/products/by-category/{categoryId}")
   @PreAuthorize("isAuthenticated()")
-  List<Product> getByCategory(@PathVariable Long categoryId) {
-    Categories category = categoryRepo.findById(categoryId)
-        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found"));
-    
-    return productRepo.findByCategory(category);
+  ResponseEntity<byte[]> getByCategory(@PathVariable Long categoryId,
+                                       @RequestParam(defaultValue = "false") boolean includeDescendants,
+                                       @RequestHeader HttpHeaders headers) {
+    if (categoryCache.findById(categoryId).isEmpty()) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found");
+    }
+
+    if (includeDescendants) {
+      return bodyCache.snapshot("products/by-category/" + categoryId + "?includeDescendants", headers,
+          () -> readOnlyTransaction.execute(
+              status -> ResponseEntity.ok(productRepo.findSummariesInCategorySubtree(categoryId))));
+    }
+    return bodyCache.snapshot("products/by-category/" + categoryId, headers,
+        () -> readOnlyTransaction.execute(
+            status -> ResponseEntity.ok(productRepo.findSummariesByCategoryId(categoryId))));
   }
 
   @PostMapping("/api/products")
@@ -55,7 +162,7 @@ public class ProductController {
     // If a category ID is provided in the request
     if (product.getCategory() != null && product.getCategory().getId() != null) {
       Long categoryId = product.getCategory().getId();
-      Categories category = categoryRepo.findById(categoryId)
+      Categories category = categoryCache.findById(categoryId)
           .orElseThrow(() -> new ResponseStatusException(
               HttpStatus.BAD_REQUEST, "Referenced category not found"));
       
@@ -75,7 +182,7 @@ public class ProductController {
     // If a category ID is provided in the request
     if (product.getCategory() != null && product.getCategory().getId() != null) {
       Long categoryId = product.getCategory().getId();
-      Categories category = categoryRepo.findById(categoryId)
+      Categories category = categoryCache.findById(categoryId)
           .orElseThrow(() -> new ResponseStatusException(
               HttpStatus.BAD_REQUEST, "Referenced category not found"));
       
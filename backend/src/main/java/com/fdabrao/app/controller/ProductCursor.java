@@ -0,0 +1,61 @@
+package com.fdabrao.app.controller;
+
+import com.fdabrao.app.model.Price;
+import com.fdabrao.app.model.ProductSummary;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Opaque keyset cursor for product listings: the sort column, its value on the last
+ * row of the previous page and that row's id, encoded as URL-safe Base64.
+ */
+record ProductCursor(String sortField, String sortValue, Long id) {
+
+  private static final char SEPARATOR = '\n';
+
+  static ProductCursor of(String sortField, ProductSummary last) {
+    String value = "price".equals(sortField) ? Price.toString(last.price()) : last.name();
+    return new ProductCursor(sortField, value, last.id());
+  }
+
+  static ProductCursor decode(String cursor, String expectedSortField) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int first = raw.indexOf(SEPARATOR);
+      int last = raw.lastIndexOf(SEPARATOR);
+      if (first < 0 || first == last) {
+        throw new IllegalArgumentException("Malformed cursor");
+      }
+      ProductCursor decoded = new ProductCursor(
+          raw.substring(0, first),
+          raw.substring(first + 1, last),
+          Long.valueOf(raw.substring(last + 1)));
+      if (!decoded.sortField().equals(expectedSortField)) {
+        throw new IllegalArgumentException("Cursor was issued for a different sort");
+      }
+      if ("price".equals(expectedSortField)) {
+        decoded.priceValue();
+      }
+      return decoded;
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+  }
+
+  String encode() {
+    String raw = sortField + SEPARATOR + sortValue + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  // Decimal text, so cursors issued before prices were held in cents still decode
+  Long priceValue() {
+    try {
+      return Price.ofDecimal(new BigDecimal(sortValue));
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("Malformed price", e);
+    }
+  }
+}
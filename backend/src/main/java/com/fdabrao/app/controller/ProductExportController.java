@@ -0,0 +1,76 @@
+package com.fdabrao.app.controller;
+
+import com.fdabrao.app.catalog.CatalogBodyCache;
+import com.fdabrao.app.catalog.CatalogExport;
+import com.fdabrao.app.catalog.CatalogRepresentation;
+import com.fdabrao.app.catalog.CatalogVersion;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Serves the full catalog as newline-delimited JSON, one product per line. Clients that accept gzip get
+ * the pre-compressed snapshot when it is current; otherwise rows are streamed from the database as they
+ * arrive, so memory use does not grow with the size of the catalog.
+ * <p>
+ * The ETag is the catalog version's, with a coding suffix on the gzipped snapshot; If-None-Match accepts
+ * either form.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProductExportController {
+
+  // Clients may keep the export but must revalidate it on every use
+  private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+  private final CatalogExport catalogExport;
+  private final CatalogVersion catalogVersion;
+
+  ProductExportController(CatalogExport catalogExport, CatalogVersion catalogVersion) {
+    this.catalogExport = catalogExport;
+    this.catalogVersion = catalogVersion;
+  }
+
+  @GetMapping(value = "/api/products/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @PreAuthorize("isAuthenticated()")
+  ResponseEntity<StreamingResponseBody> export(@RequestHeader HttpHeaders headers) {
+    // Captured before anything is read, so the body is never older than its ETag
+    String etag = catalogVersion.current().etag();
+    String matching = CatalogRepresentation.matchingEtag(headers.getIfNoneMatch(), etag);
+    if (matching != null) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(matching)
+          .cacheControl(CACHE_CONTROL)
+          .varyBy(HttpHeaders.ACCEPT_ENCODING)
+          .build();
+    }
+    byte[] snapshot = CatalogBodyCache.acceptsGzip(headers) ? catalogExport.gzippedSnapshot() : null;
+    if (snapshot != null) {
+      return ResponseEntity.ok()
+          .contentType(MediaType.APPLICATION_NDJSON)
+          .contentLength(snapshot.length)
+          .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+          .eTag(CatalogRepresentation.gzipped(etag))
+          .cacheControl(CACHE_CONTROL)
+          .varyBy(HttpHeaders.ACCEPT_ENCODING)
+          .body(out -> out.write(snapshot));
+    }
+    // The body runs on the MVC async executor, so the export opens its own read-only transaction.
+    // The ETag is weak because the container may gzip the stream, and it does not compress strong ones.
+    StreamingResponseBody body = catalogExport::write;
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .eTag("W/" + etag)
+        .cacheControl(CACHE_CONTROL)
+        .varyBy(HttpHeaders.ACCEPT_ENCODING)
+        .body(body);
+  }
+}
@@ -0,0 +1,35 @@
+package com.fdabrao.app.controller;
+
+import com.fdabrao.app.catalog.ProductSearchHit;
+import com.fdabrao.app.catalog.ProductSearchIndex;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProductSearchController {
+
+  private static final int MAX_RESULTS = 100;
+
+  private final ProductSearchIndex searchIndex;
+
+  ProductSearchController(ProductSearchIndex searchIndex) {
+    this.searchIndex = searchIndex;
+  }
+
+  // Ranked full-text search over product names and descriptions, answered from memory
+  @GetMapping("/api/products/search")
+  @PreAuthorize("isAuthenticated()")
+  List<ProductSearchHit> search(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+    if (limit < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be positive");
+    }
+    return searchIndex.search(q, Math.min(limit, MAX_RESULTS));
+  }
+}
@@ -0,0 +1,232 @@
+package com.fdabrao.app.controller;
+
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.model.ProductSummary;
+import com.fdabrao.app.model.User;
+import com.fdabrao.app.persistence.ReactiveCategoriesRepository;
+import com.fdabrao.app.persistence.ReactiveProductRepository;
+import com.fdabrao.app.persistence.ReactiveProductRepository.SummaryPageQuery;
+import com.fdabrao.app.security.AccountUserDetails;
+import com.fdabrao.app.security.JwtTokenUtil;
+import com.fdabrao.app.security.LastLoginRecorder;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Functional endpoints of the reactive web stack: the catalog reads of {@link ProductController} and
+ * {@link CategoriesController}, with the same paths, parameters and JSON, plus login so the instance can issue
+ * its own tokens. Every handler only composes R2DBC queries, so no request holds a thread while it waits.
+ * <p>
+ * Only active when the application runs as a reactive web application, which the {@code reactive} profile
+ * selects; writes and the other endpoints stay on the servlet stack.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+class ReactiveApiRoutes {
+
+  private static final int MAX_PAGE_SIZE = 500;
+
+  private final ReactiveProductRepository productRepo;
+  private final ReactiveCategoriesRepository categoriesRepo;
+  private final ReactiveAuthenticationManager loginAuthenticationManager;
+  private final JwtTokenUtil jwtTokenUtil;
+  private final LastLoginRecorder lastLoginRecorder;
+
+  ReactiveApiRoutes(ReactiveProductRepository productRepo,
+                    ReactiveCategoriesRepository categoriesRepo,
+                    ReactiveAuthenticationManager loginAuthenticationManager,
+                    JwtTokenUtil jwtTokenUtil,
+                    LastLoginRecorder lastLoginRecorder) {
+    this.productRepo = productRepo;
+    this.categoriesRepo = categoriesRepo;
+    this.loginAuthenticationManager = loginAuthenticationManager;
+    this.jwtTokenUtil = jwtTokenUtil;
+    this.lastLoginRecorder = lastLoginRecorder;
+  }
+
+  @Bean
+  RouterFunction<ServerResponse> reactiveApi() {
+    // Fixed paths before the {id} patterns they would otherwise match
+    return RouterFunctions.route()
+        .POST("/api/auth/login", this::login)
+        .GET("/api/products", this::getProducts)
+        .GET("/api/products/export", this::exportProducts)
+        .GET("/api/products/by-category/{categoryId}", this::getProductsByCategory)
+        .GET("/api/products/{id}", this::getProduct)
+        .GET("/api/categories", this::getCategories)
+        .GET("/api/categories/byParent/{parentCategory}", this::getCategoriesByParent)
+        .GET("/api/categories/{id}/subtree", this::getCategorySubtree)
+        .GET("/api/categories/{id}", this::getCategory)
+        .build();
+  }
+
+  Mono<ServerResponse> login(ServerRequest request) {
+    return request.bodyToMono(new ParameterizedTypeReference<Map<String, String>>() {})
+        .defaultIfEmpty(Map.of())
+        .flatMap(credentials -> {
+          String username = credentials.get("username");
+          String password = credentials.get("password");
+          if (username == null || password == null) {
+            return Mono.error(new ResponseStatusException(
+                HttpStatus.BAD_REQUEST, "Username and password are required"));
+          }
+          return loginAuthenticationManager.authenticate(
+              UsernamePasswordAuthenticationToken.unauthenticated(username, password));
+        })
+        .onErrorMap(AuthenticationException.class,
+            e -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials"))
+        .flatMap(authentication -> {
+          AccountUserDetails userDetails = (AccountUserDetails) authentication.getPrincipal();
+          User user = userDetails.getAccount();
+          String token = jwtTokenUtil.generateToken(userDetails, user.getId());
+          lastLoginRecorder.record(user.getId(), LocalDateTime.now());
+
+          // Same body as AuthController#login
+          Map<String, Object> response = new HashMap<>();
+          response.put("token", token);
+          response.put("id", user.getId());
+          response.put("username", user.getUsername());
+          response.put("email", user.getEmail());
+          response.put("firstName", user.getFirstName());
+          response.put("lastName", user.getLastName());
+          response.put("role", user.getRole());
+          return ServerResponse.ok().bodyValue(response);
+        });
+  }
+
+  // One keyset page, as in ProductController#getAll; the page is bounded, so it is collected to set the header
+  Mono<ServerResponse> getProducts(ServerRequest request) {
+    String sort = request.queryParam("sort").orElse("name");
+    if (!"name".equals(sort) && !"price".equals(sort)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sort must be one of: name, price");
+    }
+    Sort.Direction direction = Sort.Direction.fromOptionalString(request.queryParam("direction").orElse("asc"))
+        .orElseThrow(() -> new ResponseStatusException(
+            HttpStatus.BAD_REQUEST, "Direction must be one of: asc, desc"));
+    int limit = queryParam(request, "limit", Integer::valueOf, 50);
+    if (limit < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be positive");
+    }
+    int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+    BigDecimal minPrice = queryParam(request, "minPrice", BigDecimal::new, null);
+    BigDecimal maxPrice = queryParam(request, "maxPrice", BigDecimal::new, null);
+
+    Object afterValue = null;
+    Long afterId = null;
+    String cursor = request.queryParam("cursor").orElse(null);
+    if (cursor != null && !cursor.isBlank()) {
+      ProductCursor after = ProductCursor.decode(cursor, sort);
+      afterValue = "price".equals(sort) ? after.priceValue() : after.sortValue();
+      afterId = after.id();
+    }
+
+    // Fetch one extra row to learn whether another page exists
+    SummaryPageQuery query = new SummaryPageQuery(
+        queryParam(request, "categoryId", Long::valueOf, null),
+        queryParam(request, "available", Boolean::valueOf, null),
+        ProductController.priceBound("minPrice", minPrice, RoundingMode.CEILING),
+        ProductController.priceBound("maxPrice", maxPrice, RoundingMode.FLOOR),
+        sort, direction.isAscending(), afterValue, afterId, pageSize + 1);
+
+    return productRepo.findSummaryPage(query).collectList().flatMap(rows -> {
+      if (rows.size() <= pageSize) {
+        return ServerResponse.ok().bodyValue(rows);
+      }
+      List<ProductSummary> page = rows.subList(0, pageSize);
+      return ServerResponse.ok()
+          .header(ProductController.NEXT_CURSOR_HEADER, ProductCursor.of(sort, page.get(pageSize - 1)).encode())
+          .bodyValue(page);
+    });
+  }
+
+  // The whole catalog as newline-delimited JSON; rows are read only as fast as the client takes them
+  Mono<ServerResponse> exportProducts(ServerRequest request) {
+    return ServerResponse.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(productRepo.streamAll(), Product.class);
+  }
+
+  Mono<ServerResponse> getProduct(ServerRequest request) {
+    return productRepo.findById(pathId(request, "id"))
+        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found")))
+        .flatMap(product -> ServerResponse.ok().bodyValue(product));
+  }
+
+  Mono<ServerResponse> getProductsByCategory(ServerRequest request) {
+    Long categoryId = pathId(request, "categoryId");
+    boolean includeDescendants = queryParam(request, "includeDescendants", Boolean::valueOf, false);
+    return categoriesRepo.findById(categoryId)
+        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found")))
+        .flatMap(category -> ServerResponse.ok().body(
+            includeDescendants
+                ? productRepo.findSummariesInCategorySubtree(categoryId)
+                : productRepo.findSummariesByCategoryId(categoryId),
+            ProductSummary.class));
+  }
+
+  Mono<ServerResponse> getCategories(ServerRequest request) {
+    boolean activeOnly = queryParam(request, "activeOnly", Boolean::valueOf, false);
+    return ServerResponse.ok().body(
+        activeOnly ? categoriesRepo.findByActiveTrue() : categoriesRepo.findAll(), Categories.class);
+  }
+
+  Mono<ServerResponse> getCategory(ServerRequest request) {
+    return categoriesRepo.findById(pathId(request, "id"))
+        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found")))
+        .flatMap(category -> ServerResponse.ok().bodyValue(category));
+  }
+
+  Mono<ServerResponse> getCategorySubtree(ServerRequest request) {
+    Long id = pathId(request, "id");
+    return categoriesRepo.findById(id)
+        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found")))
+        .flatMap(category -> ServerResponse.ok().body(categoriesRepo.findSubtree(id), Categories.class));
+  }
+
+  Mono<ServerResponse> getCategoriesByParent(ServerRequest request) {
+    return ServerResponse.ok().body(
+        categoriesRepo.findByParentCategory(request.pathVariable("parentCategory")), Categories.class);
+  }
+
+  private static Long pathId(ServerRequest request, String name) {
+    try {
+      return Long.valueOf(request.pathVariable(name));
+    } catch (NumberFormatException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + name);
+    }
+  }
+
+  private static <T> T queryParam(ServerRequest request, String name, Function<String, T> parse, T defaultValue) {
+    return request.queryParam(name)
+        .map(value -> {
+          try {
+            return parse.apply(value);
+          } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + name);
+          }
+        })
+        .orElse(defaultValue);
+  }
+}
@@ -1,10 +1,17 @@
 package com.fdabrao.app.exception;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fdabrao.app.security.PasswordHashingBusyException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -18,6 +25,7 @@ import org.springframework.web.server.ResponseStatusException;
  * Provides consistent error response structure for various exceptions.
  */
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class RestExceptionHandler {
 
     /**
@@ -37,6 +45,25 @@ public class RestExceptionHandler {
         return new ResponseEntity<>(errorResponse, ex.getStatusCode());
     }
 
+    /**
+     * Handle a saturated password hashing pool: shed the request quickly and ask the client to retry
+     */
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<Object> handlePasswordHashingBusy(
+            PasswordHashingBusyException ex, WebRequest request) {
+        
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("timestamp", LocalDateTime.now().toString());
+        errorResponse.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        errorResponse.put("error", HttpStatus.SERVICE_UNAVAILABLE.toString());
+        errorResponse.put("message", ex.getMessage());
+        errorResponse.put("path", ((ServletWebRequest) request).getRequest().getRequestURI());
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
     /**
      * Handle validation errors
      */
@@ -62,6 +89,38 @@ public class RestExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handle request bodies that cannot be read, such as a price with fractions of a cent
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Object> handleUnreadableBody(
+            HttpMessageNotReadableException ex, WebRequest request) {
+        
+        String message = "Malformed request body";
+        if (ex.getCause() instanceof InvalidFormatException invalid && !invalid.getPath().isEmpty()) {
+            message = "Invalid value for " + fieldPath(invalid) + ": " + invalid.getOriginalMessage();
+        }
+        
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("timestamp", LocalDateTime.now().toString());
+        errorResponse.put("status", HttpStatus.BAD_REQUEST.value());
+        errorResponse.put("error", HttpStatus.BAD_REQUEST.toString());
+        errorResponse.put("message", message);
+        errorResponse.put("path", ((ServletWebRequest) request).getRequest().getRequestURI());
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    // "items[3].price" style path of the field that failed to deserialize
+    private static String fieldPath(JsonMappingException ex) {
+        return ex.getPath().stream()
+                .map(reference -> reference.getFieldName() != null
+                        ? "." + reference.getFieldName()
+                        : "[" + reference.getIndex() + "]")
+                .collect(Collectors.joining())
+                .replaceFirst("^\\.", "");
+    }
+
     /**
      * Handle other unexpected exceptions
      */
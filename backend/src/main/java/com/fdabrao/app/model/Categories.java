@@ -1,14 +1,20 @@
 package com.fdabrao.app.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fdabrao.app.catalog.CatalogChangeListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 @Entity
 @Table(name = "category")
+@EntityListeners(CatalogChangeListener.class)
 public class Categories {
 
   @Id
@@ -21,12 +27,24 @@ public class Categories {
   @Column
   private String description;
 
+  // The parent's name; kept in sync with parentId by a database trigger, so either may be written and both
+  // are read back after each write
   @Column
+  @Generated(event = {EventType.INSERT, EventType.UPDATE}, writable = true)
   private String parentCategory;
 
+  @Column(name = "parent_id")
+  @Generated(event = {EventType.INSERT, EventType.UPDATE}, writable = true)
+  private Long parentId;
+
   @Column(nullable = false)
   private Boolean active;
 
+  // Id of the transaction that last wrote the row, set by a database trigger; only queried for delta sync
+  @JsonIgnore
+  @Column(name = "change_txid", insertable = false, updatable = false)
+  private Long changeTxid;
+
   public Categories() {}
 
   public Categories(
@@ -59,6 +77,10 @@ public class Categories {
     return parentCategory;
   }
 
+  public Long getParentId() {
+    return parentId;
+  }
+
   public Boolean getActive() {
     return active;
   }
@@ -79,6 +101,10 @@ public class Categories {
     this.parentCategory = parentCategory;
   }
 
+  public void setParentId(Long parentId) {
+    this.parentId = parentId;
+  }
+
   public void setActive(Boolean active) {
     this.active = active;
   }
@@ -94,6 +120,7 @@ public class Categories {
     if (!name.equals(category.name)) return false;
     if (description != null ? !description.equals(category.description) : category.description != null) return false;
     if (parentCategory != null ? !parentCategory.equals(category.parentCategory) : category.parentCategory != null) return false;
+    if (parentId != null ? !parentId.equals(category.parentId) : category.parentId != null) return false;
     return active.equals(category.active);
   }
 
@@ -103,6 +130,7 @@ public class Categories {
     result = 31 * result + name.hashCode();
     result = 31 * result + (description != null ? description.hashCode() : 0);
     result = 31 * result + (parentCategory != null ? parentCategory.hashCode() : 0);
+    result = 31 * result + (parentId != null ? parentId.hashCode() : 0);
     result = 31 * result + active.hashCode();
     return result;
   }
@@ -114,6 +142,7 @@ public class Categories {
            ", name='" + name + '\'' +
            ", description='" + description + '\'' +
            ", parentCategory='" + parentCategory + '\'' +
+           ", parentId=" + parentId +
            ", active=" + active +
            '}';
   }
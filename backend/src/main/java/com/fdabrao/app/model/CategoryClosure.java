@@ -0,0 +1,62 @@
+package com.fdabrao.app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.util.Objects;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * One (ancestor, descendant) pair of the category hierarchy, {@code depth} levels apart; every category is
+ * its own ancestor at depth 0. Maintained by database triggers (see schema.sql) and only read here.
+ */
+@Entity
+@Immutable
+@Table(name = "category_closure")
+@IdClass(CategoryClosure.Key.class)
+public class CategoryClosure {
+
+  @Id
+  @Column(name = "ancestor_id")
+  private Long ancestorId;
+
+  @Id
+  @Column(name = "descendant_id")
+  private Long descendantId;
+
+  @Column(nullable = false)
+  private Integer depth;
+
+  public Long getAncestorId() {
+    return ancestorId;
+  }
+
+  public Long getDescendantId() {
+    return descendantId;
+  }
+
+  public Integer getDepth() {
+    return depth;
+  }
+
+  public static class Key implements Serializable {
+
+    private Long ancestorId;
+    private Long descendantId;
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key key)) return false;
+      return Objects.equals(ancestorId, key.ancestorId) && Objects.equals(descendantId, key.descendantId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(ancestorId, descendantId);
+    }
+  }
+}
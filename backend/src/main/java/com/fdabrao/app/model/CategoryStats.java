@@ -0,0 +1,22 @@
+package com.fdabrao.app.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Product statistics of a category: {@code own} covers the products assigned to it directly,
+ * {@code rollup} those of the category and all of its descendants.
+ */
+public record CategoryStats(
+    Long categoryId,
+    Figures own,
+    Figures rollup) {
+
+  // Prices are in cents, and Price.NONE (null in JSON) when the products counted are none
+  public record Figures(
+      long productCount,
+      long availableCount,
+      @JsonSerialize(using = PriceJson.Serializer.class) long minPrice,
+      @JsonSerialize(using = PriceJson.Serializer.class) long avgPrice,
+      @JsonSerialize(using = PriceJson.Serializer.class) long maxPrice) {
+  }
+}
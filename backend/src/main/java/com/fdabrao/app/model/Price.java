@@ -0,0 +1,65 @@
+package com.fdabrao.app.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Prices are held as a primitive {@code long} count of cents, matching the two decimal places of the
+ * {@code DECIMAL(10,2)} column exactly. Decimals only appear at the edges: the column mapping
+ * ({@link PriceConverter}), JSON ({@link PriceJson}) and request parameters.
+ */
+public final class Price {
+
+  // Stands in for "no price given" in primitive fields; never stored
+  public static final long NONE = Long.MIN_VALUE;
+
+  private static final int SCALE = 2;
+
+  private Price() {}
+
+  /**
+   * Exact conversion; fails with {@link ArithmeticException} when the value has fractions of a cent.
+   */
+  public static long ofDecimal(BigDecimal value) {
+    return value.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+  }
+
+  // Rounds to whole cents instead of failing, e.g. for range bounds
+  public static long ofDecimal(BigDecimal value, RoundingMode rounding) {
+    return value.setScale(SCALE, rounding).unscaledValue().longValueExact();
+  }
+
+  public static BigDecimal toDecimal(long cents) {
+    return BigDecimal.valueOf(cents, SCALE);
+  }
+
+  /**
+   * Writes {@code cents} as a plain decimal ("-12.05") into {@code buffer} ending at {@code end}
+   * and returns the start offset. The buffer needs room for 21 characters.
+   */
+  static int format(long cents, char[] buffer, int end) {
+    boolean negative = cents < 0;
+    // Work on the negative value so Long.MIN_VALUE does not overflow
+    long remaining = negative ? cents : -cents;
+    int pos = end;
+    for (int digit = 0; digit < SCALE; digit++) {
+      buffer[--pos] = (char) ('0' - remaining % 10);
+      remaining /= 10;
+    }
+    buffer[--pos] = '.';
+    do {
+      buffer[--pos] = (char) ('0' - remaining % 10);
+      remaining /= 10;
+    } while (remaining != 0);
+    if (negative) {
+      buffer[--pos] = '-';
+    }
+    return pos;
+  }
+
+  public static String toString(long cents) {
+    char[] buffer = new char[21];
+    int start = format(cents, buffer, buffer.length);
+    return new String(buffer, start, buffer.length - start);
+  }
+}
@@ -0,0 +1,23 @@
+package com.fdabrao.app.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.math.BigDecimal;
+
+/**
+ * Maps cents onto the numeric price column, so filters, sorting and aggregates still run on the column
+ * itself. {@link Price#NONE} is written as NULL and rejected by the NOT NULL constraint, as before.
+ */
+@Converter
+public class PriceConverter implements AttributeConverter<Long, BigDecimal> {
+
+  @Override
+  public BigDecimal convertToDatabaseColumn(Long cents) {
+    return cents == null || cents == Price.NONE ? null : Price.toDecimal(cents);
+  }
+
+  @Override
+  public Long convertToEntityAttribute(BigDecimal value) {
+    return value == null ? Price.NONE : Price.ofDecimal(value);
+  }
+}
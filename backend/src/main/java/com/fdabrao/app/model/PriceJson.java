@@ -0,0 +1,82 @@
+package com.fdabrao.app.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Keeps prices on the wire as decimal numbers ({@code "price": 15.99}) while they are cents in memory.
+ */
+public final class PriceJson {
+
+  private PriceJson() {}
+
+  /**
+   * Writes the digits straight into JSON output, without going through BigDecimal or String.
+   */
+  public static class Serializer extends StdSerializer<Long> {
+
+    public Serializer() {
+      super(Long.class);
+    }
+
+    @Override
+    public void serialize(Long cents, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      long value = cents;
+      if (value == Price.NONE) {
+        gen.writeNull();
+        return;
+      }
+      if (!gen.canWriteFormattedNumbers()) {
+        // Binary formats (CBOR, Smile) have no number text, but an exact decimal type
+        gen.writeNumber(BigDecimal.valueOf(value, 2));
+        return;
+      }
+      char[] buffer = new char[21];
+      int start = Price.format(value, buffer, buffer.length);
+      gen.writeNumber(buffer, start, buffer.length - start);
+    }
+  }
+
+  /**
+   * Accepts numbers and numeric strings; values with fractions of a cent are rejected rather than rounded.
+   */
+  public static class Deserializer extends StdDeserializer<Long> {
+
+    public Deserializer() {
+      super(Long.class);
+    }
+
+    @Override
+    public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      JsonToken token = p.currentToken();
+      try {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+          return Math.multiplyExact(p.getLongValue(), 100L);
+        }
+        if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+          // Parsed from the literal text, so 15.99 stays exactly 15.99
+          return Price.ofDecimal(p.getDecimalValue());
+        }
+        if (token == JsonToken.VALUE_STRING) {
+          return Price.ofDecimal(new BigDecimal(p.getText().trim()));
+        }
+      } catch (ArithmeticException | NumberFormatException e) {
+        throw InvalidFormatException.from(p, "Price must be in whole cents", p.getText(), Long.class);
+      }
+      return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+    }
+
+    @Override
+    public Long getNullValue(DeserializationContext ctxt) {
+      return Price.NONE;
+    }
+  }
+}
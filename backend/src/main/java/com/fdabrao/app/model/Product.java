@@ -1,21 +1,31 @@
 package com.fdabrao.app.model;
 
+import com.fdabrao.app.catalog.CatalogChangeListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 @Entity
 @Table(name = "product")
+@EntityListeners(CatalogChangeListener.class)
 public class Product {
 
+  // Sequence ids (pooled, 50 per round trip) let Hibernate batch inserts, which IDENTITY prevents
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_id_seq")
+  @SequenceGenerator(name = "product_id_seq", sequenceName = "product_id_seq", allocationSize = 50)
   private Long id;
 
   @Column(nullable = false)
@@ -24,12 +34,21 @@ public class Product {
   @Column(nullable = false)
   private String description;
 
+  // In cents; see Price
   @Column(nullable = false)
-  private Double price;
+  @Convert(converter = PriceConverter.class)
+  @JsonSerialize(using = PriceJson.Serializer.class)
+  @JsonDeserialize(using = PriceJson.Deserializer.class)
+  private long price = Price.NONE;
 
   @Column(nullable = false)
   private Boolean available;
 
+  // Id of the transaction that last wrote the row, set by a database trigger; only queried for delta sync
+  @JsonIgnore
+  @Column(name = "change_txid", insertable = false, updatable = false)
+  private Long changeTxid;
+
   @ManyToOne(fetch = FetchType.EAGER)
   @JoinColumn(name = "category_id")
   private Categories category;
@@ -40,7 +59,7 @@ public class Product {
     Long id,
     String name,
     String description,
-    Double price,
+    long price,
     Boolean available,
     Categories category
   ) {
@@ -64,7 +83,7 @@ public class Product {
     return description;
   }
 
-  public Double getPrice() {
+  public long getPrice() {
     return price;
   }
 
@@ -88,7 +107,7 @@ public class Product {
     this.description = description;
   }
 
-  public void setPrice(Double price) {
+  public void setPrice(long price) {
     this.price = price;
   }
 
@@ -110,7 +129,7 @@ public class Product {
     if (id != null ? !id.equals(product.id) : product.id != null) return false;
     if (!name.equals(product.name)) return false;
     if (!description.equals(product.description)) return false;
-    if (!price.equals(product.price)) return false;
+    if (price != product.price) return false;
     if (!available.equals(product.available)) return false;
     return category != null ? category.equals(product.category) : product.category == null;
   }
@@ -120,7 +139,7 @@ public class Product {
     int result = id != null ? id.hashCode() : 0;
     result = 31 * result + name.hashCode();
     result = 31 * result + description.hashCode();
-    result = 31 * result + price.hashCode();
+    result = 31 * result + Long.hashCode(price);
     result = 31 * result + available.hashCode();
     result = 31 * result + (category != null ? category.hashCode() : 0);
     return result;
@@ -132,7 +151,7 @@ public class Product {
            "id=" + id +
            ", name='" + name + '\'' +
            ", description='" + description + '\'' +
-           ", price=" + price +
+           ", price=" + Price.toString(price) +
            ", available=" + available +
            ", category=" + (category != null ? category.getName() : "null") +
            '}';
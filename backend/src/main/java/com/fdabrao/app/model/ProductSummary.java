@@ -0,0 +1,18 @@
+package com.fdabrao.app.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Read-only row for product listings: the product's own columns plus its category's id and name,
+ * selected in one query instead of loading full {@link Categories} entities per row.
+ * The price is in cents.
+ */
+public record ProductSummary(
+    Long id,
+    String name,
+    String description,
+    @JsonSerialize(using = PriceJson.Serializer.class) long price,
+    Boolean available,
+    Long categoryId,
+    String categoryName) {
+}
@@ -0,0 +1,12 @@
+package com.fdabrao.app.model;
+
+/**
+ * What authenticating a token needs to know about a {@link User}, and nothing more: without the password
+ * hash or personal details, so it can be kept in a cache shared between nodes.
+ */
+public record UserAccount(
+    Long id,
+    String username,
+    String role,
+    boolean active) {
+}
@@ -3,10 +3,31 @@ package com.fdabrao.app.persistence;
 import com.fdabrao.app.model.Categories;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface CategoriesRepository extends JpaRepository<Categories, Long> {
+    // Cache of findById; cleared after every category write, see RepositoryCacheConfig
+    String CACHE = "categories";
+
+    // Misses read from the primary, like ProductRepository#findById
+    @Override
+    @Transactional
+    @Cacheable(cacheNames = CACHE, key = "#id", unless = "#result == null")
+    Optional<Categories> findById(Long id);
+
     Optional<Categories> findByName(String name);
     List<Categories> findByParentCategory(String parentCategory);
     List<Categories> findByActiveTrue();
+
+    // The category and everything below it, nearest levels first, through the closure table
+    @Query("SELECT c FROM Categories c, CategoryClosure cc "
+            + "WHERE cc.descendantId = c.id AND cc.ancestorId = :id ORDER BY cc.depth, c.id")
+    List<Categories> findSubtree(Long id);
+
+    // Delta sync, see ProductRepository#findSettledTransactionMark
+    @Query("SELECT c FROM Categories c WHERE c.changeTxid >= :since AND c.changeTxid < :until ORDER BY c.id")
+    List<Categories> findChangedBetween(long since, long until);
 } 
\ No newline at end of file
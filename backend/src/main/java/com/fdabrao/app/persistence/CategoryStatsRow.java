@@ -0,0 +1,31 @@
+package com.fdabrao.app.persistence;
+
+/**
+ * One row of the category statistics query: figures for the category's own products, and the same figures
+ * rolled up over the category and all of its descendants. Prices are in cents, and null when there
+ * are no products.
+ */
+public interface CategoryStatsRow {
+
+    Long getCategoryId();
+
+    long getProductCount();
+
+    long getAvailableCount();
+
+    Long getMinPrice();
+
+    Long getAvgPrice();
+
+    Long getMaxPrice();
+
+    long getTotalProductCount();
+
+    long getTotalAvailableCount();
+
+    Long getTotalMinPrice();
+
+    Long getTotalAvgPrice();
+
+    Long getTotalMaxPrice();
+}
@@ -2,10 +2,111 @@ package com.fdabrao.app.persistence;
 
 import com.fdabrao.app.model.Categories;
 import com.fdabrao.app.model.Product;
+import com.fdabrao.app.model.ProductSummary;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ProductRepository
+        extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductSummaryRepository {
+
+    // Joins every category (ancestor) with the products of its whole subtree through the closure table.
+    // Prices are aggregated as exact numerics and returned in cents; the average is rounded half away from zero
+    String CATEGORY_STATS_SELECT = "SELECT s.ancestor_id AS categoryId,"
+            + " COUNT(p.id) FILTER (WHERE s.depth = 0) AS productCount,"
+            + " COUNT(p.id) FILTER (WHERE s.depth = 0 AND p.available) AS availableCount,"
+            + " CAST(MIN(p.price) FILTER (WHERE s.depth = 0) * 100 AS bigint) AS minPrice,"
+            + " CAST(ROUND(AVG(p.price) FILTER (WHERE s.depth = 0) * 100) AS bigint) AS avgPrice,"
+            + " CAST(MAX(p.price) FILTER (WHERE s.depth = 0) * 100 AS bigint) AS maxPrice,"
+            + " COUNT(p.id) AS totalProductCount,"
+            + " COUNT(p.id) FILTER (WHERE p.available) AS totalAvailableCount,"
+            + " CAST(MIN(p.price) * 100 AS bigint) AS totalMinPrice,"
+            + " CAST(ROUND(AVG(p.price) * 100) AS bigint) AS totalAvgPrice,"
+            + " CAST(MAX(p.price) * 100 AS bigint) AS totalMaxPrice"
+            + " FROM category_closure s LEFT JOIN product p ON p.category_id = s.descendant_id ";
+
+    // Cache of findById; entries are evicted after product and category writes, see RepositoryCacheConfig
+    String CACHE = "products";
+
+    // Not read-only, so misses read from the primary: a row cached from a lagging replica would outlive the lag
+    @Override
+    @Transactional
+    @Cacheable(cacheNames = CACHE, key = "#id", unless = "#result == null")
+    Optional<Product> findById(Long id);
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByCategory(Categories category);
     List<Product> findByCategoryId(Long categoryId);
+
+    @Query("SELECT new com.fdabrao.app.model.ProductSummary("
+            + "p.id, p.name, p.description, p.price, p.available, c.id, c.name) "
+            + "FROM Product p JOIN p.category c WHERE c.id = :categoryId ORDER BY p.id")
+    List<ProductSummary> findSummariesByCategoryId(Long categoryId);
+
+    // Products of the category and all of its descendants, in one query through the closure table
+    @Query("SELECT new com.fdabrao.app.model.ProductSummary("
+            + "p.id, p.name, p.description, p.price, p.available, c.id, c.name) "
+            + "FROM Product p JOIN p.category c, CategoryClosure cc "
+            + "WHERE cc.descendantId = c.id AND cc.ancestorId = :categoryId ORDER BY p.id")
+    List<ProductSummary> findSummariesInCategorySubtree(Long categoryId);
+
+    // Which of the given ids exist, in one round trip
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    // Per-category product figures, own and rolled up through the hierarchy, aggregated in one statement
+    @Query(value = CATEGORY_STATS_SELECT + "GROUP BY s.ancestor_id ORDER BY s.ancestor_id", nativeQuery = true)
+    List<CategoryStatsRow> findCategoryStats();
+
+    @Query(value = CATEGORY_STATS_SELECT + "WHERE s.ancestor_id = :categoryId GROUP BY s.ancestor_id",
+            nativeQuery = true)
+    Optional<CategoryStatsRow> findCategoryStats(Long categoryId);
+
+    // Delta sync: transactions below this id have all committed or rolled back (see schema.sql)
+    @Query(value = "SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint)",
+            nativeQuery = true)
+    long findSettledTransactionMark();
+
+    @Query("SELECT new com.fdabrao.app.model.ProductSummary("
+            + "p.id, p.name, p.description, p.price, p.available, c.id, c.name) "
+            + "FROM Product p LEFT JOIN p.category c "
+            + "WHERE p.changeTxid >= :since AND p.changeTxid < :until ORDER BY p.id")
+    List<ProductSummary> findSummariesChangedBetween(long since, long until);
+
+    // Ids of deleted products or categories (entityType PRODUCT or CATEGORY)
+    @Query(value = "SELECT entity_id FROM catalog_tombstone "
+            + "WHERE entity_type = :entityType AND change_txid >= :since AND change_txid < :until "
+            + "ORDER BY entity_id", nativeQuery = true)
+    List<Long> findDeletedBetween(String entityType, long since, long until);
+
+    @Query(value = "SELECT horizon FROM catalog_sync_horizon", nativeQuery = true)
+    long findSyncHorizon();
+
+    // Drops tombstones up to the newest one older than `before` and raises the horizon past them
+    @Modifying
+    @Transactional
+    @Query(value = "WITH cutoff AS ("
+            + " SELECT MAX(change_txid) AS txid FROM catalog_tombstone WHERE deleted_at < :before),"
+            + " pruned AS (DELETE FROM catalog_tombstone WHERE change_txid <= (SELECT txid FROM cutoff))"
+            + " UPDATE catalog_sync_horizon SET horizon = GREATEST(horizon, (SELECT txid + 1 FROM cutoff))"
+            + " WHERE (SELECT txid FROM cutoff) IS NOT NULL", nativeQuery = true)
+    int pruneTombstones(LocalDateTime before);
+
+    // Server-side cursor over the whole catalog; must be consumed inside a transaction and closed
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category ORDER BY p.id")
+    Stream<Product> streamAll();
 }
@@ -0,0 +1,70 @@
+package com.fdabrao.app.persistence;
+
+import com.fdabrao.app.model.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Reusable query fragments for product listings.
+ * Filters return null when the criterion is absent so they can be chained with
+ * {@link Specification#and(Specification)} without extra branching.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {}
+
+    public static Specification<Product> inCategory(Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    public static Specification<Product> available(Boolean available) {
+        if (available == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("available"), available);
+    }
+
+    // Prices in cents, compared against the numeric column through the entity's converter
+    public static Specification<Product> priceAtLeast(Long minPrice) {
+        if (minPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Product> priceAtMost(Long maxPrice) {
+        if (maxPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    /**
+     * Keyset predicate selecting the rows that come after (sortValue, id) in the given order.
+     * Written as {@code v >= :v AND (v > :v OR id > :id)} rather than a plain OR so that
+     * Postgres can start a range scan on the (sort column, id) composite index.
+     */
+    public static <T extends Comparable<? super T>> Specification<Product> after(
+            String property, Sort.Direction direction, T sortValue, Long id) {
+        if (sortValue == null || id == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (direction.isAscending()) {
+                return cb.and(
+                        cb.greaterThanOrEqualTo(root.<T>get(property), sortValue),
+                        cb.or(
+                                cb.greaterThan(root.<T>get(property), sortValue),
+                                cb.greaterThan(root.<Long>get("id"), id)));
+            }
+            return cb.and(
+                    cb.lessThanOrEqualTo(root.<T>get(property), sortValue),
+                    cb.or(
+                            cb.lessThan(root.<T>get(property), sortValue),
+                            cb.lessThan(root.<Long>get("id"), id)));
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.fdabrao.app.persistence;
+
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.model.ProductSummary;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Listing queries that project straight into {@link ProductSummary} rows.
+ */
+public interface ProductSummaryRepository {
+
+    // At most `limit` summaries matching the specification, with the category joined in the same statement
+    List<ProductSummary> findSummaryPage(Specification<Product> spec, Sort sort, int limit);
+}
@@ -0,0 +1,54 @@
+package com.fdabrao.app.persistence;
+
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.model.ProductSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+class ProductSummaryRepositoryImpl implements ProductSummaryRepository {
+
+    private final EntityManager entityManager;
+
+    ProductSummaryRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<ProductSummary> findSummaryPage(Specification<Product> spec, Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummary> query = cb.createQuery(ProductSummary.class);
+        Root<Product> product = query.from(Product.class);
+        Join<Product, Categories> category = product.join("category", JoinType.LEFT);
+
+        // A constructor projection is not an entity, so the eager category mapping triggers no extra selects
+        query.select(cb.construct(
+                ProductSummary.class,
+                product.get("id"),
+                product.get("name"),
+                product.get("description"),
+                product.get("price"),
+                product.get("available"),
+                category.get("id"),
+                category.get("name")));
+
+        Predicate predicate = spec != null ? spec.toPredicate(product, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, product, cb));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
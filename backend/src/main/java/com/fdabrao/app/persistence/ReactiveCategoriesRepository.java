@@ -0,0 +1,72 @@
+package com.fdabrao.app.persistence;
+
+import com.fdabrao.app.model.Categories;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of the read queries in {@link CategoriesRepository}, for the reactive web stack.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCategoriesRepository {
+
+    private static final String SELECT = "SELECT c.id, c.name, c.description, c.parent_category, c.parent_id, c.active"
+            + " FROM category c ";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveCategoriesRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<Categories> findAll() {
+        return databaseClient.sql(SELECT + "ORDER BY c.id")
+                .map(ReactiveCategoriesRepository::toCategory)
+                .all();
+    }
+
+    public Flux<Categories> findByActiveTrue() {
+        return databaseClient.sql(SELECT + "WHERE c.active ORDER BY c.id")
+                .map(ReactiveCategoriesRepository::toCategory)
+                .all();
+    }
+
+    public Mono<Categories> findById(Long id) {
+        return databaseClient.sql(SELECT + "WHERE c.id = :id")
+                .bind("id", id)
+                .map(ReactiveCategoriesRepository::toCategory)
+                .one();
+    }
+
+    public Flux<Categories> findByParentCategory(String parentCategory) {
+        return databaseClient.sql(SELECT + "WHERE c.parent_category = :parentCategory ORDER BY c.id")
+                .bind("parentCategory", parentCategory)
+                .map(ReactiveCategoriesRepository::toCategory)
+                .all();
+    }
+
+    // The category and everything below it, nearest levels first, through the closure table
+    public Flux<Categories> findSubtree(Long id) {
+        return databaseClient.sql(SELECT + "JOIN category_closure cc ON cc.descendant_id = c.id"
+                        + " WHERE cc.ancestor_id = :id ORDER BY cc.depth, c.id")
+                .bind("id", id)
+                .map(ReactiveCategoriesRepository::toCategory)
+                .all();
+    }
+
+    private static Categories toCategory(Readable row) {
+        Categories category = new Categories(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("description", String.class),
+                row.get("parent_category", String.class),
+                row.get("active", Boolean.class));
+        category.setParentId(row.get("parent_id", Long.class));
+        return category;
+    }
+}
@@ -0,0 +1,181 @@
+package com.fdabrao.app.persistence;
+
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Price;
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.model.ProductSummary;
+import io.r2dbc.spi.Readable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of the read queries in {@link ProductRepository}, for the reactive web stack.
+ * Results are emitted row by row as the database returns them; listings that may be large are fetched in
+ * batches of {@value #FETCH_SIZE} rows, the next batch only being requested when the subscriber asks for more.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductRepository {
+
+    private static final int FETCH_SIZE = 250;
+
+    private static final String SUMMARY_SELECT = "SELECT p.id, p.name, p.description, p.price, p.available,"
+            + " c.id AS category_id, c.name AS category_name"
+            + " FROM product p LEFT JOIN category c ON c.id = p.category_id ";
+
+    private static final String PRODUCT_SELECT = "SELECT p.id, p.name, p.description, p.price, p.available,"
+            + " c.id AS category_id, c.name AS category_name, c.description AS category_description,"
+            + " c.parent_category AS category_parent_category, c.parent_id AS category_parent_id,"
+            + " c.active AS category_active"
+            + " FROM product p LEFT JOIN category c ON c.id = p.category_id ";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveProductRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Filters and keyset position of one listing page; null fields are not applied. Prices are in cents.
+     */
+    public record SummaryPageQuery(
+            Long categoryId,
+            Boolean available,
+            Long minPrice,
+            Long maxPrice,
+            String sort,
+            boolean ascending,
+            Object afterValue,
+            Long afterId,
+            int limit) {
+    }
+
+    // At most `limit` summaries, ordered by the sort column and then id like ProductRepository#findSummaryPage
+    public Flux<ProductSummary> findSummaryPage(SummaryPageQuery query) {
+        String column = switch (query.sort()) {
+            case "name" -> "p.name";
+            case "price" -> "p.price";
+            default -> throw new IllegalArgumentException("Unsupported sort: " + query.sort());
+        };
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> bindings = new LinkedHashMap<>();
+        if (query.categoryId() != null) {
+            conditions.add("p.category_id = :categoryId");
+            bindings.put("categoryId", query.categoryId());
+        }
+        if (query.available() != null) {
+            conditions.add("p.available = :available");
+            bindings.put("available", query.available());
+        }
+        if (query.minPrice() != null) {
+            conditions.add("p.price >= :minPrice");
+            bindings.put("minPrice", Price.toDecimal(query.minPrice()));
+        }
+        if (query.maxPrice() != null) {
+            conditions.add("p.price <= :maxPrice");
+            bindings.put("maxPrice", Price.toDecimal(query.maxPrice()));
+        }
+        if (query.afterValue() != null && query.afterId() != null) {
+            // Same shape as ProductSpecifications#after, so the (sort column, id) index can be range-scanned
+            String op = query.ascending() ? ">" : "<";
+            conditions.add(column + " " + op + "= :afterValue AND (" + column + " " + op + " :afterValue OR p.id "
+                    + op + " :afterId)");
+            Object afterValue = query.afterValue() instanceof Long cents ? Price.toDecimal(cents) : query.afterValue();
+            bindings.put("afterValue", afterValue);
+            bindings.put("afterId", query.afterId());
+        }
+        String direction = query.ascending() ? "ASC" : "DESC";
+        StringBuilder sql = new StringBuilder(SUMMARY_SELECT);
+        if (!conditions.isEmpty()) {
+            sql.append("WHERE ").append(String.join(" AND ", conditions)).append(' ');
+        }
+        sql.append("ORDER BY ").append(column).append(' ').append(direction)
+                .append(", p.id ").append(direction)
+                .append(" LIMIT :limit");
+        bindings.put("limit", query.limit());
+
+        return databaseClient.sql(sql.toString())
+                .bindValues(bindings)
+                .map(ReactiveProductRepository::toSummary)
+                .all();
+    }
+
+    public Mono<Product> findById(Long id) {
+        return databaseClient.sql(PRODUCT_SELECT + "WHERE p.id = :id")
+                .bind("id", id)
+                .map(ReactiveProductRepository::toProduct)
+                .one();
+    }
+
+    // The whole catalog in id order, read in batches as the subscriber consumes it
+    public Flux<Product> streamAll() {
+        return databaseClient.sql(PRODUCT_SELECT + "ORDER BY p.id")
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveProductRepository::toProduct)
+                .all();
+    }
+
+    public Flux<ProductSummary> findSummariesByCategoryId(Long categoryId) {
+        return databaseClient.sql(SUMMARY_SELECT + "WHERE p.category_id = :categoryId ORDER BY p.id")
+                .bind("categoryId", categoryId)
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveProductRepository::toSummary)
+                .all();
+    }
+
+    // Products of the category and all of its descendants, through the closure table
+    public Flux<ProductSummary> findSummariesInCategorySubtree(Long categoryId) {
+        return databaseClient.sql(SUMMARY_SELECT
+                        + "JOIN category_closure cc ON cc.descendant_id = p.category_id"
+                        + " WHERE cc.ancestor_id = :categoryId ORDER BY p.id")
+                .bind("categoryId", categoryId)
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveProductRepository::toSummary)
+                .all();
+    }
+
+    private static ProductSummary toSummary(Readable row) {
+        return new ProductSummary(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("description", String.class),
+                toCents(row.get("price", BigDecimal.class)),
+                row.get("available", Boolean.class),
+                row.get("category_id", Long.class),
+                row.get("category_name", String.class));
+    }
+
+    private static Product toProduct(Readable row) {
+        Categories category = null;
+        Long categoryId = row.get("category_id", Long.class);
+        if (categoryId != null) {
+            category = new Categories(
+                    categoryId,
+                    row.get("category_name", String.class),
+                    row.get("category_description", String.class),
+                    row.get("category_parent_category", String.class),
+                    row.get("category_active", Boolean.class));
+            category.setParentId(row.get("category_parent_id", Long.class));
+        }
+        return new Product(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("description", String.class),
+                toCents(row.get("price", BigDecimal.class)),
+                row.get("available", Boolean.class),
+                category);
+    }
+
+    // Same mapping as PriceConverter
+    private static long toCents(BigDecimal price) {
+        return price != null ? Price.ofDecimal(price) : Price.NONE;
+    }
+}
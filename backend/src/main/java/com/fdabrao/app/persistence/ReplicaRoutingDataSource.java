@@ -0,0 +1,222 @@
+package com.fdabrao.app.persistence;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Sends connections of read-only transactions to a pool of Postgres replicas and everything else to the
+ * primary. Connections are fetched lazily, on the first statement, so the read-only flag of the surrounding
+ * transaction is known when the target is chosen.
+ * <p>
+ * Replicas are checked periodically and skipped while they lag the primary by more than {@code maxLagMillis}
+ * or cannot be reached. A read also stays on the primary when the caller must see its own recent write
+ * ({@code primaryRequired}), inside {@link #readFromPrimary(Supplier)}, and after {@link #primaryWritten()}
+ * until a check finds a replica that has replayed past that write.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private static final String REPLICA_STATE_QUERY = "SELECT pg_is_in_recovery(), "
+            + "CAST(pg_last_wal_replay_lsn() AS text), "
+            + "EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final BooleanSupplier primaryRequired;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong primaryWrites = new AtomicLong();
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+
+    // WAL position that covers the first `generation` calls to primaryWritten()
+    private volatile Barrier barrier = new Barrier(0, 0);
+
+    private record Barrier(long generation, long lsn) {}
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    BooleanSupplier primaryRequired, long maxLagMillis,
+                                    MeterRegistry meterRegistry) {
+        super(primary);
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.primaryRequired = primaryRequired;
+        this.maxLagMillis = maxLagMillis;
+        this.replicaReads = readCounter(meterRegistry, "replica");
+        this.primaryReads = readCounter(meterRegistry, "primary");
+        for (Replica replica : this.replicas) {
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagMillis)
+                    .tag("pool", replica.dataSource.getPoolName())
+                    .description("Replication lag seen by the last check, infinite while unreachable")
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+        setReadOnlyDataSource(new ReadOnlyDataSource());
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("datasource.reads")
+                .tag("target", target)
+                .description("Read-only connections handed out per target")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code read} with every read-only connection taken from the primary, for reads whose result is
+     * kept (such as caches reloaded after a change) and must not come from a lagging replica.
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    /**
+     * Records a committed write that no later read may miss; reads use the primary until a replica catches up.
+     */
+    public void primaryWritten() {
+        primaryWrites.incrementAndGet();
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.lag-check-interval-ms:1000}")
+    public void checkReplicas() {
+        // Read before the WAL position, so the position includes every write counted here
+        long writes = primaryWrites.get();
+        long primaryLsn;
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT CAST(pg_current_wal_lsn() AS text)")) {
+            result.next();
+            primaryLsn = parseLsn(result.getString(1));
+        } catch (SQLException e) {
+            logger.warn("Could not read the primary WAL position, keeping the last replica state", e);
+            return;
+        }
+        if (barrier.generation() != writes) {
+            barrier = new Barrier(writes, primaryLsn);
+        }
+
+        for (Replica replica : replicas) {
+            long replayLsn;
+            double lag;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(REPLICA_STATE_QUERY)) {
+                result.next();
+                if (!result.getBoolean(1)) {
+                    // Not a standby (e.g. a standalone copy used in tests): always current
+                    replayLsn = Long.MAX_VALUE;
+                    lag = 0;
+                } else {
+                    String replayed = result.getString(2);
+                    double sinceLastReplay = result.getDouble(3);
+                    replayLsn = replayed != null ? parseLsn(replayed) : -1;
+                    lag = replayLsn >= primaryLsn ? 0
+                            : result.wasNull() ? Double.POSITIVE_INFINITY : sinceLastReplay;
+                }
+            } catch (SQLException e) {
+                replayLsn = -1;
+                lag = Double.POSITIVE_INFINITY;
+            }
+            boolean usable = lag <= maxLagMillis;
+            if (usable != replica.usable) {
+                logger.warn("Replica {} is now {} (lag {} ms)",
+                        replica.dataSource.getPoolName(), usable ? "in use" : "skipped", lag);
+            }
+            replica.replayLsn = replayLsn;
+            replica.lagMillis = lag;
+            replica.usable = usable;
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+        primary.close();
+    }
+
+    private Connection readConnection() throws SQLException {
+        Barrier current = barrier;
+        boolean barrierKnown = current.generation() == primaryWrites.get();
+        if (barrierKnown && !Boolean.TRUE.equals(PRIMARY_ONLY.get()) && !primaryRequired.getAsBoolean()) {
+            int size = replicas.size();
+            int start = Math.floorMod(next.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get((start + i) % size);
+                if (!replica.usable || replica.replayLsn < current.lsn()) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaReads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    // Taken out until the next check finds it reachable again
+                    replica.usable = false;
+                    logger.warn("Replica {} refused a connection, reading elsewhere",
+                            replica.dataSource.getPoolName(), e);
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    // Postgres prints WAL positions as two hex halves, e.g. 16/B374D848
+    private static long parseLsn(String lsn) {
+        int separator = lsn.indexOf('/');
+        return (Long.parseLong(lsn.substring(0, separator), 16) << 32)
+                | Long.parseLong(lsn.substring(separator + 1), 16);
+    }
+
+    private static final class Replica {
+        final HikariDataSource dataSource;
+        volatile boolean usable = true;
+        volatile long replayLsn = Long.MAX_VALUE;
+        volatile double lagMillis;
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+
+    // Target of the lazy proxy for connections marked read-only before their first statement
+    private final class ReadOnlyDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return readConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new UnsupportedOperationException("Replica connections use the configured credentials");
+        }
+    }
+}
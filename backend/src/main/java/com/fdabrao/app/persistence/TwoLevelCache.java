@@ -0,0 +1,197 @@
+package com.fdabrao.app.persistence;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.lang.Nullable;
+
+/**
+ * One cache of {@link TwoLevelCacheManager}: a Caffeine near-cache in front of an optional shared Redis tier.
+ * Both tiers hold values serialized as JSON, so every hit hands out its own copy and callers may modify it.
+ * <p>
+ * A lookup that misses the near-cache asks the shared tier and keeps what it finds. Evictions remove the entry
+ * from both tiers and are announced through {@code invalidations}, so the other nodes drop their near copies.
+ * The shared tier is best effort: while it cannot be reached, lookups fall through to the database.
+ */
+class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    private final String name;
+    private final Cache<String, byte[]> near;
+    private final RedisCacheWriter shared;
+    private final Duration sharedTtl;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    // Called with the evicted key, or null when the whole cache was cleared
+    private final Consumer<String> invalidations;
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+
+    TwoLevelCache(String name,
+                  Cache<String, byte[]> near,
+                  @Nullable RedisCacheWriter shared,
+                  Duration sharedTtl,
+                  ObjectReader reader,
+                  ObjectWriter writer,
+                  Consumer<String> invalidations,
+                  MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.near = near;
+        this.shared = shared;
+        this.sharedTtl = sharedTtl;
+        this.reader = reader;
+        this.writer = writer;
+        this.invalidations = invalidations;
+        this.sharedHits = sharedGets(meterRegistry, name, "hit");
+        this.sharedMisses = sharedGets(meterRegistry, name, "miss");
+    }
+
+    private static Counter sharedGets(MeterRegistry meterRegistry, String cache, String result) {
+        return Counter.builder("cache.shared.gets")
+                .tag("cache", cache)
+                .tag("result", result)
+                .description("Lookups in the shared tier after a near-cache miss")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return near;
+    }
+
+    @Override
+    @Nullable
+    protected Object lookup(Object key) {
+        String nearKey = key.toString();
+        byte[] bytes = near.getIfPresent(nearKey);
+        if (bytes == null && shared != null) {
+            bytes = sharedGet(nearKey);
+            if (bytes != null) {
+                sharedHits.increment();
+                near.put(nearKey, bytes);
+            } else {
+                sharedMisses.increment();
+            }
+        }
+        return bytes != null ? deserialize(bytes) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) value;
+        }
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value != null) {
+            put(key, value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        String nearKey = key.toString();
+        byte[] bytes = serialize(toStoreValue(value));
+        near.put(nearKey, bytes);
+        if (shared != null) {
+            try {
+                shared.put(name, sharedKey(nearKey), bytes, sharedTtl);
+            } catch (RuntimeException e) {
+                logger.warn("Could not write {} {} to the shared cache: {}", name, nearKey, e.toString());
+            }
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        String nearKey = key.toString();
+        if (shared != null) {
+            try {
+                shared.remove(name, sharedKey(nearKey));
+            } catch (RuntimeException e) {
+                logger.warn("Could not evict {} {} from the shared cache: {}", name, nearKey, e.toString());
+            }
+        }
+        near.invalidate(nearKey);
+        invalidations.accept(nearKey);
+    }
+
+    @Override
+    public void clear() {
+        if (shared != null) {
+            try {
+                shared.clean(name, sharedKey("*"));
+            } catch (RuntimeException e) {
+                logger.warn("Could not clear {} in the shared cache: {}", name, e.toString());
+            }
+        }
+        near.invalidateAll();
+        invalidations.accept(null);
+    }
+
+    /**
+     * Drops the near copy of {@code key}, or of every entry when it is null, after another node announced a
+     * change.
+     */
+    void evictNear(@Nullable String key) {
+        if (key == null) {
+            near.invalidateAll();
+        } else {
+            near.invalidate(key);
+        }
+    }
+
+    @Nullable
+    private byte[] sharedGet(String key) {
+        try {
+            return shared.get(name, sharedKey(key));
+        } catch (RuntimeException e) {
+            logger.warn("Could not read {} {} from the shared cache: {}", name, key, e.toString());
+            return null;
+        }
+    }
+
+    private byte[] sharedKey(String key) {
+        return ("app:cache:" + name + "::" + key).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Object deserialize(byte[] bytes) {
+        try {
+            return reader.readValue(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read a cached " + name + " entry", e);
+        }
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize a " + name + " entry", e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.fdabrao.app.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.lang.Nullable;
+
+/**
+ * Spring cache manager for repository reads: each cache is a per-node Caffeine near-cache, backed by a Redis tier
+ * shared by all nodes when a connection factory is given. Each cache holds one entity type, set per cache name.
+ * <p>
+ * Evictions are published on a Redis channel together with the id of the node that made them. Every other node
+ * receives them through {@link #onMessage} and drops its near copy; the shared tier was already updated by the
+ * sender. Pub/sub does not redeliver, so a message missed while disconnected leaves a near copy stale until it
+ * expires; the near-cache TTL bounds that.
+ */
+public class TwoLevelCacheManager extends AbstractCacheManager implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private final Map<String, Class<?>> valueTypes;
+    private final ObjectMapper objectMapper;
+    private final long nearMaxSize;
+    private final Duration nearTtl;
+    private final RedisConnectionFactory sharedTier;
+    private final RedisCacheWriter sharedWriter;
+    private final Duration sharedTtl;
+    private final byte[] channel;
+    private final MeterRegistry meterRegistry;
+    // Lets a node recognize, and skip, its own messages
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // The key is null when the whole cache was cleared
+    record Invalidation(String node, String cache, String key) {}
+
+    public TwoLevelCacheManager(Map<String, Class<?>> valueTypes,
+                                ObjectMapper objectMapper,
+                                long nearMaxSize,
+                                Duration nearTtl,
+                                @Nullable RedisConnectionFactory sharedTier,
+                                Duration sharedTtl,
+                                String channel,
+                                MeterRegistry meterRegistry) {
+        this.valueTypes = valueTypes;
+        this.objectMapper = objectMapper;
+        this.nearMaxSize = nearMaxSize;
+        this.nearTtl = nearTtl;
+        this.sharedTier = sharedTier;
+        this.sharedWriter = sharedTier != null
+                ? RedisCacheWriter.nonLockingRedisCacheWriter(sharedTier, BatchStrategies.scan(1000))
+                : null;
+        this.sharedTtl = sharedTtl;
+        this.channel = channel.getBytes(StandardCharsets.UTF_8);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected List<TwoLevelCache> loadCaches() {
+        List<TwoLevelCache> caches = new ArrayList<>();
+        valueTypes.forEach((name, type) -> {
+            Cache<String, byte[]> near = Caffeine.newBuilder()
+                    .maximumSize(nearMaxSize)
+                    .expireAfterWrite(nearTtl)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, near, name);
+            caches.add(new TwoLevelCache(name, near, sharedWriter, sharedTtl,
+                    objectMapper.readerFor(type), objectMapper.writerFor(type),
+                    key -> publish(new Invalidation(nodeId, name, key)), meterRegistry));
+        });
+        return caches;
+    }
+
+    @Override
+    public void onMessage(Message message, @Nullable byte[] pattern) {
+        Invalidation invalidation;
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), Invalidation.class);
+        } catch (IOException e) {
+            logger.warn("Ignoring an unreadable cache invalidation", e);
+            return;
+        }
+        // Catalog changes share the channel and are handled by CatalogChangeRelay
+        if (invalidation.cache() == null || nodeId.equals(invalidation.node())) {
+            return;
+        }
+        if (getCache(invalidation.cache()) instanceof TwoLevelCache cache) {
+            cache.evictNear(invalidation.key());
+        }
+    }
+
+    private void publish(Invalidation invalidation) {
+        if (sharedTier == null) {
+            return;
+        }
+        try (RedisConnection connection = sharedTier.getConnection()) {
+            connection.publish(channel, objectMapper.writeValueAsBytes(invalidation));
+        } catch (IOException | RuntimeException e) {
+            // The other nodes keep their copy until the near-cache TTL runs out
+            logger.warn("Could not announce the eviction of {} {}: {}", invalidation.cache(), invalidation.key(),
+                    e.toString());
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.fdabrao.app.persistence;
 
 import com.fdabrao.app.model.User;
+import com.fdabrao.app.model.UserAccount;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -11,9 +16,24 @@ import org.springframework.transaction.annotation.Transactional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
   
-  // Find a user by username
+  // Cache of findAccountByUsername; entries are evicted when the user is saved, and the whole cache is cleared
+  // when UserDenylist sees users deactivated or reactivated
+  String CACHE = "users";
+  
+  // Find a user by username, with its password hash; never cached
   Optional<User> findByUsername(String username);
   
+  // Find the account a token names; misses read from the primary, like ProductRepository#findById
+  @Transactional
+  @Cacheable(cacheNames = CACHE, key = "#username", unless = "#result == null")
+  @Query("SELECT new com.fdabrao.app.model.UserAccount(u.id, u.username, u.role, u.active) "
+      + "FROM User u WHERE u.username = :username")
+  Optional<UserAccount> findAccountByUsername(String username);
+  
+  @Override
+  @CacheEvict(cacheNames = CACHE, key = "#entity.username")
+  <S extends User> S save(S entity);
+  
   // Find a user by email
   Optional<User> findByEmail(String email);
   
@@ -23,8 +43,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
   // Check if an email exists
   boolean existsByEmail(String email);
   
+  // Ids of deactivated users, used to revoke their tokens
+  @Query("SELECT u.id FROM User u WHERE u.active = false")
+  List<Long> findIdsByActiveFalse();
+  
+  @Modifying
+  @Transactional
+  @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.id = :userId")
+  void updatePasswordHash(Long userId, String passwordHash);
+  
+  // Set many users' last login in one statement; never moves a timestamp backwards
   @Modifying
   @Transactional
-  @Query("UPDATE User u SET u.lastLogin = CURRENT_TIMESTAMP WHERE u.id = :userId")
-  void updateLastLogin(Long userId);
+  @Query(value = "UPDATE app_user u SET last_login = v.last_login "
+      + "FROM unnest(CAST(:ids AS bigint[]), CAST(:lastLogins AS timestamp[])) AS v(id, last_login) "
+      + "WHERE u.id = v.id AND (u.last_login IS NULL OR u.last_login < v.last_login)",
+      nativeQuery = true)
+  int updateLastLogins(Long[] ids, LocalDateTime[] lastLogins);
 } 
\ No newline at end of file
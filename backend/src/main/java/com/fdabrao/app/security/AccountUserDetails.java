@@ -0,0 +1,23 @@
+package com.fdabrao.app.security;
+
+import com.fdabrao.app.model.User;
+import java.util.Collection;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * {@link org.springframework.security.core.userdetails.User} that keeps the account it was loaded from,
+ * so callers of the authentication manager get the user row without looking it up again.
+ */
+public class AccountUserDetails extends org.springframework.security.core.userdetails.User {
+
+    private final User account;
+
+    public AccountUserDetails(User account, Collection<? extends GrantedAuthority> authorities) {
+        super(account.getUsername(), account.getPasswordHash(), authorities);
+        this.account = account;
+    }
+
+    public User getAccount() {
+        return account;
+    }
+}
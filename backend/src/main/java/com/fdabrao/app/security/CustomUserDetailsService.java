@@ -1,16 +1,18 @@
 package com.fdabrao.app.security;
 
 import com.fdabrao.app.model.User;
+import com.fdabrao.app.model.UserAccount;
 import com.fdabrao.app.persistence.UserRepository;
 import java.util.Collections;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -27,10 +29,35 @@ public class CustomUserDetailsService implements UserDetailsService {
             throw new UsernameNotFoundException("User is inactive: " + username);
         }
         
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPasswordHash(),
+        return new AccountUserDetails(
+                user,
                 Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole()))
         );
     }
-} 
\ No newline at end of file
+
+    // For tokens issued without the id and roles claims: the cached account, without the password hash
+    public UserDetails loadTokenUser(String username) throws UsernameNotFoundException {
+        UserAccount account = userRepository.findAccountByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        
+        if (!account.active()) {
+            throw new UsernameNotFoundException("User is inactive: " + username);
+        }
+        
+        return new org.springframework.security.core.userdetails.User(
+                account.username(),
+                "",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + account.role()))
+        );
+    }
+
+    // Called by the authentication provider after a successful login whose stored hash uses a different cost
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        AccountUserDetails details = (AccountUserDetails) user;
+        User account = details.getAccount();
+        userRepository.updatePasswordHash(account.getId(), newPassword);
+        account.setPasswordHash(newPassword);
+        return new AccountUserDetails(account, details.getAuthorities());
+    }
+}
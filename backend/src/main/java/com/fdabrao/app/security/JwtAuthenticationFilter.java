@@ -1,13 +1,18 @@
 package com.fdabrao.app.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -21,10 +26,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtTokenUtil jwtTokenUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final UserDenylist userDenylist;
+    private final Timer parseTimer;
+    private final Timer lookupTimer;
+    private final Timer chainTimer;
 
-    public JwtAuthenticationFilter(JwtTokenUtil jwtTokenUtil, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenUtil jwtTokenUtil, CustomUserDetailsService userDetailsService,
+                                   UserDenylist userDenylist, MeterRegistry meterRegistry) {
         this.jwtTokenUtil = jwtTokenUtil;
         this.userDetailsService = userDetailsService;
+        this.userDenylist = userDenylist;
+        this.parseTimer = phaseTimer(meterRegistry, "parse", "Token signature check and claim extraction");
+        this.lookupTimer = phaseTimer(meterRegistry, "lookup", "Building the principal from claims or the database");
+        this.chainTimer = phaseTimer(meterRegistry, "chain", "Rest of the request after authentication");
+    }
+
+    private static Timer phaseTimer(MeterRegistry meterRegistry, String phase, String description) {
+        return Timer.builder("auth.filter")
+                .tag("phase", phase)
+                .description(description)
+                .register(meterRegistry);
     }
 
     @Override
@@ -42,24 +63,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String username = null;
         String jwtToken = null;
+        long parseNanos = 0;
 
         // JWT Token is in the form "Bearer token". Remove Bearer word and get only the Token
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
             jwtToken = requestTokenHeader.substring(7);
+            long started = System.nanoTime();
             try {
                 username = jwtTokenUtil.getUsernameFromToken(jwtToken);
             } catch (Exception e) {
                 logger.warn("JWT Token has expired or is invalid");
             }
+            parseNanos = System.nanoTime() - started;
         } else {
             logger.warn("JWT Token does not begin with Bearer String");
         }
 
         // Once we get the token, validate it
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            long started = System.nanoTime();
+            UserDetails userDetails = resolveUserDetails(jwtToken, username);
+            lookupTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+            started = System.nanoTime();
+            boolean valid = userDetails != null && jwtTokenUtil.validateToken(jwtToken, userDetails);
+            parseNanos += System.nanoTime() - started;
 
-            if (jwtTokenUtil.validateToken(jwtToken, userDetails)) {
+            if (valid) {
                 UsernamePasswordAuthenticationToken authToken = 
                     new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
@@ -69,6 +99,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
-        chain.doFilter(request, response);
+        if (jwtToken != null) {
+            parseTimer.record(parseNanos, TimeUnit.NANOSECONDS);
+        }
+
+        long started = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            chainTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Build the principal from the verified claims; tokens issued without them fall back to a lookup
+    private UserDetails resolveUserDetails(String jwtToken, String username) {
+        Long userId = jwtTokenUtil.getUserIdFromToken(jwtToken);
+        List<GrantedAuthority> authorities = jwtTokenUtil.getAuthoritiesFromToken(jwtToken);
+
+        if (userId == null || authorities == null) {
+            return this.userDetailsService.loadTokenUser(username);
+        }
+        if (userDenylist.isDenied(userId)) {
+            logger.warn("JWT Token belongs to a deactivated user");
+            return null;
+        }
+        return new org.springframework.security.core.userdetails.User(username, "", authorities);
     }
-} 
\ No newline at end of file
+}
@@ -1,15 +1,24 @@
 package com.fdabrao.app.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
@@ -19,10 +28,41 @@ public class JwtTokenUtil {
     // Token validity duration in seconds (1 day)
     private static final long JWT_TOKEN_VALIDITY = 24 * 60 * 60;
     
-    private final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+    // Claims that let the authentication filter rebuild the principal without a database lookup
+    static final String ROLES_CLAIM = "roles";
+    static final String USER_ID_CLAIM = "uid";
     
-    @Value("${jwt.secret:key_for_jwt_token_signature}")
-    private String secret;
+    // HS512 needs a key of at least 512 bits
+    static final int MIN_SECRET_BYTES = 64;
+    
+    // Derived from jwt.secret, so every instance, servlet or reactive, accepts the tokens of the others
+    private final Key key;
+    
+    // Parsers are immutable and thread-safe, so one instance serves every request
+    private final JwtParser parser;
+    
+    // Claims of tokens whose signature was already verified, evicted when the token expires
+    private final Cache<String, Claims> verifiedClaims;
+
+    public JwtTokenUtil(@Value("${jwt.secret}") String secret,
+                        @Value("${jwt.cache.max-size:10000}") long cacheMaxSize) {
+        if (secret.isBlank()) {
+            throw new IllegalStateException("jwt.secret is not set; provide a signing key through JWT_SECRET");
+        }
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("jwt.secret must be at least " + MIN_SECRET_BYTES
+                    + " bytes long, got " + secretBytes.length);
+        }
+        this.key = Keys.hmacShaKeyFor(secretBytes);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new ExpireAtTokenExpiration())
+                .build();
+    }
 
     // Retrieve username from JWT token
     public String getUsernameFromToken(String token) {
@@ -34,19 +74,38 @@ public class JwtTokenUtil {
         return getClaimFromToken(token, Claims::getExpiration);
     }
 
+    // Retrieve the user id embedded at login, or null for tokens issued without one
+    public Long getUserIdFromToken(String token) {
+        Number userId = getClaimFromToken(token, claims -> claims.get(USER_ID_CLAIM, Number.class));
+        return userId != null ? userId.longValue() : null;
+    }
+
+    // Retrieve the granted authorities embedded at login, or null for tokens issued without them
+    public List<GrantedAuthority> getAuthoritiesFromToken(String token) {
+        List<?> roles = getClaimFromToken(token, claims -> claims.get(ROLES_CLAIM, List.class));
+        if (roles == null) {
+            return null;
+        }
+        return roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(String.valueOf(role)))
+                .toList();
+    }
+
     // Extract a specific claim from the token
     public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = getAllClaimsFromToken(token);
         return claimsResolver.apply(claims);
     }
     
-    // For retrieving any information from token we will need the secret key
+    // For retrieving any information from token we will need the secret key.
+    // The cache is keyed by the full token string, so a hit requires an exact match
+    // with a token that already passed signature verification.
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return verifiedClaims.get(token, this::parseClaims);
+    }
+
+    private Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
     // Check if the token has expired
@@ -57,10 +116,25 @@ public class JwtTokenUtil {
 
     // Generate token for user
     public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails, null);
+    }
+
+    // Generate token for user, embedding its id and roles so requests can be authenticated statelessly
+    public String generateToken(UserDetails userDetails, Long userId) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLES_CLAIM, toRoleNames(userDetails.getAuthorities()));
+        if (userId != null) {
+            claims.put(USER_ID_CLAIM, userId);
+        }
         return doGenerateToken(claims, userDetails.getUsername());
     }
 
+    private static List<String> toRoleNames(Collection<? extends GrantedAuthority> authorities) {
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+    }
+
     private String doGenerateToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
@@ -76,4 +150,27 @@ public class JwtTokenUtil {
         final String username = getUsernameFromToken(token);
         return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
     }
-} 
\ No newline at end of file
+
+    // Expire each cache entry at the moment its token's exp claim is reached
+    private static class ExpireAtTokenExpiration implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String token, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            long remainingMillis = expiration != null
+                    ? expiration.getTime() - System.currentTimeMillis()
+                    : JWT_TOKEN_VALIDITY * 1000;
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.fdabrao.app.security;
+
+import com.fdabrao.app.persistence.UserRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Buffers last-login timestamps in memory and writes them in the background, so a login
+ * never waits on an UPDATE. Repeated logins of one user between flushes coalesce into a
+ * single row change; each flush writes every pending user with one statement.
+ * Pending timestamps are flushed once more when the application shuts down.
+ */
+@Component
+public class LastLoginRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastLoginRecorder.class);
+
+    private final UserRepository userRepository;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public LastLoginRecorder(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public void record(Long userId, LocalDateTime loginTime) {
+        pending.merge(userId, loginTime, LastLoginRecorder::latest);
+    }
+
+    @Scheduled(fixedDelayString = "${security.last-login.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Long> ids = new ArrayList<>(pending.size());
+            List<LocalDateTime> loginTimes = new ArrayList<>(pending.size());
+            for (Long id : pending.keySet()) {
+                // remove() hands over exactly the value it takes out, so concurrent records are never lost
+                LocalDateTime loginTime = pending.remove(id);
+                if (loginTime != null) {
+                    ids.add(id);
+                    loginTimes.add(loginTime);
+                }
+            }
+            write(ids, loginTimes);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void write(List<Long> ids, List<LocalDateTime> loginTimes) {
+        try {
+            userRepository.updateLastLogins(ids.toArray(Long[]::new), loginTimes.toArray(LocalDateTime[]::new));
+        } catch (RuntimeException e) {
+            // Put the batch back so the next flush retries it
+            for (int i = 0; i < ids.size(); i++) {
+                record(ids.get(i), loginTimes.get(i));
+            }
+            logger.warn("Could not write last login times for {} users, will retry", ids.size(), e);
+        }
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,22 @@
+package com.fdabrao.app.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Shared by the servlet and the reactive security configuration
+@Configuration
+public class PasswordEncoderConfig {
+
+    @Bean
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${security.bcrypt.strength:10}") int strength,
+            @Value("${security.bcrypt.threads:0}") int threads,
+            @Value("${security.bcrypt.queue-capacity:64}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        // By default leave half of the cores to the rest of the API
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(strength, poolSize, queueCapacity, meterRegistry);
+    }
+}
@@ -0,0 +1,11 @@
+package com.fdabrao.app.security;
+
+/**
+ * Thrown when the password hashing pool and its queue are both full.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException() {
+        super("Too many concurrent password checks, try again shortly");
+    }
+}
@@ -0,0 +1,85 @@
+package com.fdabrao.app.security;
+
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+/**
+ * Reactive counterpart of {@link JwtAuthenticationFilter}: the same token checks, with the principal put into the
+ * reactive security context. Tokens carrying the id and roles claims are authenticated without any I/O; only
+ * older tokens need the user row, and that lookup runs on a worker thread rather than the event loop.
+ * <p>
+ * Not a bean on purpose: WebFlux would also apply a WebFilter bean outside the security chain.
+ */
+public class ReactiveJwtAuthenticationFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveJwtAuthenticationFilter.class);
+
+    private final JwtTokenUtil jwtTokenUtil;
+    private final CustomUserDetailsService userDetailsService;
+    private final UserDenylist userDenylist;
+
+    public ReactiveJwtAuthenticationFilter(JwtTokenUtil jwtTokenUtil, CustomUserDetailsService userDetailsService,
+                                           UserDenylist userDenylist) {
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.userDetailsService = userDetailsService;
+        this.userDenylist = userDenylist;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String requestTokenHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (requestTokenHeader == null || !requestTokenHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+        String jwtToken = requestTokenHeader.substring(7);
+        return authenticate(jwtToken)
+                .map(ReactiveSecurityContextHolder::withAuthentication)
+                .defaultIfEmpty(Context.empty())
+                .flatMap(context -> chain.filter(exchange).contextWrite(context));
+    }
+
+    private Mono<Authentication> authenticate(String jwtToken) {
+        String username;
+        try {
+            username = jwtTokenUtil.getUsernameFromToken(jwtToken);
+        } catch (Exception e) {
+            logger.warn("JWT Token has expired or is invalid");
+            return Mono.empty();
+        }
+        return resolveUserDetails(jwtToken, username)
+                .filter(userDetails -> jwtTokenUtil.validateToken(jwtToken, userDetails))
+                .map(userDetails -> new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities()));
+    }
+
+    // Same rules as JwtAuthenticationFilter#resolveUserDetails
+    private Mono<UserDetails> resolveUserDetails(String jwtToken, String username) {
+        Long userId = jwtTokenUtil.getUserIdFromToken(jwtToken);
+        List<GrantedAuthority> authorities = jwtTokenUtil.getAuthoritiesFromToken(jwtToken);
+
+        if (userId == null || authorities == null) {
+            return Mono.fromCallable(() -> userDetailsService.loadTokenUser(username))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .onErrorResume(UsernameNotFoundException.class, e -> Mono.empty());
+        }
+        if (userDenylist.isDenied(userId)) {
+            logger.warn("JWT Token belongs to a deactivated user");
+            return Mono.empty();
+        }
+        return Mono.just(new org.springframework.security.core.userdetails.User(username, "", authorities));
+    }
+}
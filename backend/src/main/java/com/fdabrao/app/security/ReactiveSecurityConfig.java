@@ -0,0 +1,88 @@
+package com.fdabrao.app.security;
+
+import java.util.Arrays;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Security for the reactive stack: the same stateless JWT authentication as {@link SecurityConfig}, for the
+ * catalog reads and login that the reactive stack serves. Every other request is refused, since writes and
+ * the remaining endpoints only exist on the servlet stack.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain reactiveSecurityFilterChain(ServerHttpSecurity http,
+                                                              JwtTokenUtil jwtTokenUtil,
+                                                              CustomUserDetailsService userDetailsService,
+                                                              UserDenylist userDenylist) {
+        http
+            .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+            .csrf(csrf -> csrf.disable())
+            .httpBasic(httpBasic -> httpBasic.disable())
+            .formLogin(formLogin -> formLogin.disable())
+            .logout(logout -> logout.disable())
+            .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+            .authorizeExchange(exchange -> exchange
+                .pathMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
+                .pathMatchers(HttpMethod.GET, "/api/products", "/api/products/**").authenticated()
+                .pathMatchers(HttpMethod.GET, "/api/categories", "/api/categories/**").authenticated()
+                .pathMatchers("/actuator/**").authenticated()
+                .anyExchange().denyAll()
+            )
+            .exceptionHandling(exception -> exception
+                .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED))
+            )
+            .addFilterAt(new ReactiveJwtAuthenticationFilter(jwtTokenUtil, userDetailsService, userDenylist),
+                    SecurityWebFiltersOrder.AUTHENTICATION);
+
+        return http.build();
+    }
+
+    // Checks login credentials; the user lookup and the password hash both run off the event loop
+    @Bean
+    public ReactiveAuthenticationManager loginAuthenticationManager(CustomUserDetailsService userDetailsService,
+                                                                    BoundedPasswordEncoder passwordEncoder) {
+        ReactiveUserDetailsService reactiveUserDetailsService = username ->
+                Mono.fromCallable(() -> userDetailsService.loadUserByUsername(username))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(UsernameNotFoundException.class, e -> Mono.empty());
+        UserDetailsRepositoryReactiveAuthenticationManager manager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(reactiveUserDetailsService);
+        manager.setPasswordEncoder(passwordEncoder);
+        return manager;
+    }
+
+    @Bean
+    public CorsConfigurationSource corsConfigurationSource() {
+        CorsConfiguration configuration = new CorsConfiguration();
+        configuration.setAllowedOrigins(Arrays.asList("*"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "OPTIONS"));
+        configuration.setAllowedHeaders(Arrays.asList("authorization", "content-type", "x-auth-token"));
+        configuration.setExposedHeaders(Arrays.asList("x-auth-token", "x-next-cursor"));
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", configuration);
+        return source;
+    }
+}
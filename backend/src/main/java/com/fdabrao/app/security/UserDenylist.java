@@ -0,0 +1,57 @@
+package com.fdabrao.app.security;
+
+import com.fdabrao.app.persistence.UserRepository;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory set of deactivated user ids, refreshed periodically from the app_user.active flag.
+ * Lets the authentication filter reject tokens of deactivated users without querying
+ * the database on every request. A deactivation takes effect within one refresh interval.
+ * Whenever the set changes, the user cache is cleared, since its entries carry the active flag.
+ */
+@Component
+public class UserDenylist {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDenylist.class);
+
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+
+    private volatile Set<Long> inactiveUserIds = Set.of();
+
+    public UserDenylist(UserRepository userRepository, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    public boolean isDenied(Long userId) {
+        return inactiveUserIds.contains(userId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${security.denylist.refresh-interval-ms:30000}",
+               initialDelayString = "${security.denylist.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            Set<Long> refreshed = Set.copyOf(userRepository.findIdsByActiveFalse());
+            if (!refreshed.equals(inactiveUserIds)) {
+                Cache userCache = cacheManager.getCache(UserRepository.CACHE);
+                if (userCache != null) {
+                    userCache.clear();
+                }
+            }
+            inactiveUserIds = refreshed;
+        } catch (RuntimeException e) {
+            // Keep serving the last known list rather than failing authentication
+            logger.warn("Could not refresh the user denylist", e);
+        }
+    }
+}
@@ -19,8 +19,17 @@ CREATE TABLE IF NOT EXISTS product (
     CONSTRAINT fk_product_category FOREIGN KEY (category_id) REFERENCES category(id)
 ); 
 
+-- Must match the allocationSize of Product's pooled id generator
+ALTER SEQUENCE product_id_seq INCREMENT BY 50;
+
 CREATE INDEX IF NOT EXISTS idx_product_category ON product(category_id);
 
+-- Keyset pagination: each sortable column paired with the id tie-breaker, optionally scoped by category
+CREATE INDEX IF NOT EXISTS idx_product_name_id ON product(name, id);
+CREATE INDEX IF NOT EXISTS idx_product_price_id ON product(price, id);
+CREATE INDEX IF NOT EXISTS idx_product_category_name_id ON product(category_id, name, id);
+CREATE INDEX IF NOT EXISTS idx_product_category_price_id ON product(category_id, price, id);
+
 CREATE TABLE IF NOT EXISTS app_user (
     id SERIAL PRIMARY KEY,
     username VARCHAR(50) NOT NULL UNIQUE,
@@ -38,3 +47,161 @@ CREATE TABLE IF NOT EXISTS app_user (
 CREATE INDEX IF NOT EXISTS idx_username ON app_user(username);
 CREATE INDEX IF NOT EXISTS idx_email ON app_user(email);
 
+
+
+-- Delta sync (/api/products/changes): catalog rows carry the id of the transaction that last wrote them and
+-- deletions leave tombstones. Transactions below pg_snapshot_xmin have all finished, so handing out changes
+-- in [since, xmin) and xmin as the next mark never skips a write that commits late.
+ALTER TABLE category ADD COLUMN IF NOT EXISTS change_txid BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE product ADD COLUMN IF NOT EXISTS change_txid BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_category_change_txid ON category(change_txid);
+CREATE INDEX IF NOT EXISTS idx_product_change_txid ON product(change_txid);
+
+CREATE TABLE IF NOT EXISTS catalog_tombstone (
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    change_txid BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_tombstone_type_txid ON catalog_tombstone(entity_type, change_txid);
+
+-- Lowest mark changes can still be requested from; raised when old tombstones are pruned
+CREATE TABLE IF NOT EXISTS catalog_sync_horizon (
+    id SMALLINT PRIMARY KEY DEFAULT 1 CHECK (id = 1),
+    horizon BIGINT NOT NULL
+);
+
+INSERT INTO catalog_sync_horizon (id, horizon) VALUES (1, 0) ON CONFLICT DO NOTHING;
+
+-- Function bodies are single-quoted rather than dollar-quoted so the schema script splitter keeps them whole
+CREATE OR REPLACE FUNCTION stamp_change_txid() RETURNS trigger AS '
+BEGIN
+    NEW.change_txid := CAST(CAST(pg_current_xact_id() AS text) AS bigint);
+    RETURN NEW;
+END' LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION record_tombstone() RETURNS trigger AS '
+BEGIN
+    INSERT INTO catalog_tombstone (entity_type, entity_id, change_txid)
+    VALUES (TG_ARGV[0], OLD.id, CAST(CAST(pg_current_xact_id() AS text) AS bigint));
+    RETURN OLD;
+END' LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS category_change_txid ON category;
+CREATE TRIGGER category_change_txid BEFORE INSERT OR UPDATE ON category
+    FOR EACH ROW EXECUTE FUNCTION stamp_change_txid();
+
+DROP TRIGGER IF EXISTS product_change_txid ON product;
+CREATE TRIGGER product_change_txid BEFORE INSERT OR UPDATE ON product
+    FOR EACH ROW EXECUTE FUNCTION stamp_change_txid();
+
+DROP TRIGGER IF EXISTS category_tombstone ON category;
+CREATE TRIGGER category_tombstone AFTER DELETE ON category
+    FOR EACH ROW EXECUTE FUNCTION record_tombstone('CATEGORY');
+
+DROP TRIGGER IF EXISTS product_tombstone ON product;
+CREATE TRIGGER product_tombstone AFTER DELETE ON product
+    FOR EACH ROW EXECUTE FUNCTION record_tombstone('PRODUCT');
+
+-- Category hierarchy: parent_id is the real reference; parent_category (the parent's name) is kept in sync for
+-- the name-based API. category_closure holds every (ancestor, descendant) pair, including each category with
+-- itself at depth 0, so a whole subtree is one indexed lookup however deep the tree is.
+ALTER TABLE category ADD COLUMN IF NOT EXISTS parent_id INTEGER REFERENCES category(id) ON DELETE SET NULL;
+
+CREATE INDEX IF NOT EXISTS idx_category_parent_id ON category(parent_id);
+
+CREATE TABLE IF NOT EXISTS category_closure (
+    ancestor_id INTEGER NOT NULL REFERENCES category(id) ON DELETE CASCADE,
+    descendant_id INTEGER NOT NULL REFERENCES category(id) ON DELETE CASCADE,
+    depth INTEGER NOT NULL,
+    PRIMARY KEY (ancestor_id, descendant_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_category_closure_descendant ON category_closure(descendant_id);
+
+INSERT INTO category_closure (ancestor_id, descendant_id, depth)
+SELECT id, id, 0 FROM category
+ON CONFLICT DO NOTHING;
+
+-- Resolves whichever side of the parent reference was written; a parent that would make a cycle is dropped
+-- (the API rejects those before they get here)
+CREATE OR REPLACE FUNCTION resolve_category_parent() RETURNS trigger AS '
+BEGIN
+    IF NEW.parent_id IS NOT NULL AND (TG_OP = ''INSERT'' OR NEW.parent_id IS DISTINCT FROM OLD.parent_id) THEN
+        NEW.parent_category := (SELECT name FROM category WHERE id = NEW.parent_id);
+    ELSIF NEW.parent_category IS NULL THEN
+        NEW.parent_id := NULL;
+    ELSE
+        NEW.parent_id := (SELECT id FROM category WHERE name = NEW.parent_category);
+    END IF;
+    -- Rejected rather than detached, so parent_id and parent_category never disagree
+    IF TG_OP = ''UPDATE'' AND NEW.parent_id IS NOT NULL AND EXISTS (
+            SELECT 1 FROM category_closure WHERE ancestor_id = NEW.id AND descendant_id = NEW.parent_id) THEN
+        RAISE EXCEPTION ''Category % cannot be placed under itself or its descendants'', NEW.id
+            USING ERRCODE = ''check_violation'';
+    END IF;
+    RETURN NEW;
+END' LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION maintain_category_closure() RETURNS trigger AS '
+BEGIN
+    IF TG_OP = ''INSERT'' THEN
+        INSERT INTO category_closure (ancestor_id, descendant_id, depth) VALUES (NEW.id, NEW.id, 0);
+    ELSE
+        -- Detach the subtree from its old ancestors
+        DELETE FROM category_closure
+        WHERE descendant_id IN (SELECT descendant_id FROM category_closure WHERE ancestor_id = NEW.id)
+          AND ancestor_id NOT IN (SELECT descendant_id FROM category_closure WHERE ancestor_id = NEW.id);
+    END IF;
+    -- Attach it below the new parent
+    INSERT INTO category_closure (ancestor_id, descendant_id, depth)
+    SELECT a.ancestor_id, d.descendant_id, a.depth + d.depth + 1
+    FROM category_closure a, category_closure d
+    WHERE a.descendant_id = NEW.parent_id AND d.ancestor_id = NEW.id;
+    RETURN NULL;
+END' LANGUAGE plpgsql;
+
+-- Children keep following a renamed parent
+CREATE OR REPLACE FUNCTION rename_category_children() RETURNS trigger AS '
+BEGIN
+    UPDATE category SET parent_category = NEW.name WHERE parent_id = NEW.id;
+    RETURN NULL;
+END' LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS category_resolve_parent ON category;
+CREATE TRIGGER category_resolve_parent BEFORE INSERT OR UPDATE ON category
+    FOR EACH ROW EXECUTE FUNCTION resolve_category_parent();
+
+DROP TRIGGER IF EXISTS category_closure_insert ON category;
+CREATE TRIGGER category_closure_insert AFTER INSERT ON category
+    FOR EACH ROW EXECUTE FUNCTION maintain_category_closure();
+
+DROP TRIGGER IF EXISTS category_closure_move ON category;
+CREATE TRIGGER category_closure_move AFTER UPDATE ON category
+    FOR EACH ROW WHEN (NEW.parent_id IS DISTINCT FROM OLD.parent_id)
+    EXECUTE FUNCTION maintain_category_closure();
+
+DROP TRIGGER IF EXISTS category_rename_children ON category;
+CREATE TRIGGER category_rename_children AFTER UPDATE ON category
+    FOR EACH ROW WHEN (NEW.name IS DISTINCT FROM OLD.name)
+    EXECUTE FUNCTION rename_category_children();
+
+-- Links categories created before parent_id existed; the triggers above fill in the closure. One row at a time, so
+-- a parent name that would close a cycle is dropped instead of failing the whole script
+DO '
+DECLARE
+    link RECORD;
+BEGIN
+    FOR link IN
+        SELECT c.id, p.id AS parent_id FROM category c JOIN category p ON c.parent_category = p.name
+        WHERE c.parent_id IS NULL AND p.id <> c.id
+    LOOP
+        BEGIN
+            UPDATE category SET parent_id = link.parent_id WHERE id = link.id;
+        EXCEPTION WHEN check_violation THEN
+            UPDATE category SET parent_category = NULL WHERE id = link.id;
+        END;
+    END LOOP;
+END';
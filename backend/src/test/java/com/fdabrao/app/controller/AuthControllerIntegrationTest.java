@@ -13,6 +13,8 @@ import com.fdabrao.app.model.User;
 import com.fdabrao.app.persistence.CategoriesRepository;
 import com.fdabrao.app.persistence.ProductRepository;
 import com.fdabrao.app.persistence.UserRepository;
+import com.fdabrao.app.security.LastLoginRecorder;
+import com.fdabrao.app.security.UserDenylist;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
@@ -30,6 +32,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -56,6 +59,12 @@ public class AuthControllerIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserDenylist userDenylist;
+
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+
     @BeforeAll
     static void beforeAll() {
         postgres.start();
@@ -69,6 +78,8 @@ public class AuthControllerIntegrationTest {
         registry.add("spring.datasource.url", postgres::getJdbcUrl);
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
+        // Metrics export is off in Spring Boot tests unless switched on explicitly
+        registry.add("management.prometheus.metrics.export.enabled", () -> "true");
     }
 
     @BeforeEach
@@ -211,6 +222,69 @@ public class AuthControllerIntegrationTest {
                 .statusCode(HttpStatus.OK.value());
     }
 
+    @Test
+    void loginShouldRecordLastLoginInBackground() {
+        // Arrange
+        String username = "lastlogin";
+        String password = "password123";
+        createTestUser(username, "lastlogin@example.com", password);
+
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put("username", username);
+        credentials.put("password", password);
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(credentials)
+                    .when()
+                    .post("/api/auth/login")
+                    .then()
+                    .statusCode(HttpStatus.OK.value());
+        }
+        lastLoginRecorder.flush();
+
+        // Assert
+        User user = userRepository.findByUsername(username).orElseThrow();
+        assertNotNull(user.getLastLogin(), "Last login should be written by the flush");
+    }
+
+    @Test
+    void loginShouldRehashPasswordStoredWithDifferentCost() {
+        // Arrange
+        String username = "rehash";
+        String password = "password123";
+        User user = new User(
+                username,
+                "rehash@example.com",
+                new BCryptPasswordEncoder(4).encode(password),
+                "Test",
+                "User",
+                "USER",
+                true);
+        user.setCreatedAt(LocalDateTime.now());
+        userRepository.save(user);
+
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put("username", username);
+        credentials.put("password", password);
+
+        // Act
+        given()
+                .contentType(ContentType.JSON)
+                .body(credentials)
+                .when()
+                .post("/api/auth/login")
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        // Assert
+        String storedHash = userRepository.findByUsername(username).orElseThrow().getPasswordHash();
+        assertTrue(storedHash.startsWith("$2a$10$"), "Hash should be upgraded to the configured cost");
+        assertTrue(passwordEncoder.matches(password, storedHash));
+    }
+
     @Test
     void shouldFailLoginWithInvalidPassword() {
         // Arrange
@@ -280,7 +354,7 @@ public class AuthControllerIntegrationTest {
         createTestUser(adminUsername, "admin@local.com");
         String adminToken = getAuthToken(adminUsername, "password123");
         // Create a product directly to ensure it exists
-        Product product = new Product(null, "Product 1", "Test Description", 19.99, true, category1);
+        Product product = new Product(null, "Product 1", "Test Description", 1999, true, category1);
         productRepository.save(product);
 
         given()
@@ -292,7 +366,68 @@ public class AuthControllerIntegrationTest {
                 .body("content", Matchers.hasSize(1));
     }
 
+    @Test
+    void deactivatedUserTokenShouldBeRejected() {
+        String username = "deactivated_user";
+        createTestUser(username, "deactivated@example.com");
+        String token = getAuthToken(username, "password123");
+
+        given()
+                .header("Authorization", "Bearer " + token)
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        User user = userRepository.findByUsername(username).orElseThrow();
+        user.setActive(false);
+        userRepository.save(user);
+        userDenylist.refresh();
+
+        given()
+                .header("Authorization", "Bearer " + token)
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(HttpStatus.UNAUTHORIZED.value());
+    }
+
     // Helper methods
+    @Test
+    void prometheusEndpointShouldExposeRequestRepositoryAndAuthMetrics() {
+        // Arrange
+        createTestUser("metrics", "metrics@local.com");
+        String token = getAuthToken("metrics", "password123");
+        given()
+                .header("Authorization", "Bearer " + token)
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        // Act
+        String metrics = given()
+                .header("Authorization", "Bearer " + token)
+                .when()
+                .get("/actuator/prometheus")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract()
+                .asString();
+
+        // Assert
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket{"), "Request timer histogram");
+        assertTrue(metrics.contains("uri=\"/api/products\""), "Request timer per endpoint");
+        assertTrue(metrics.contains("spring_data_repository_invocations_seconds_count{"), "Repository timer");
+        assertTrue(metrics.contains("repository=\"ProductRepository\""), "Repository timer per repository");
+        assertTrue(metrics.contains("auth_filter_seconds_count{phase=\"parse\"}"), "Auth filter parse timer");
+        assertTrue(metrics.contains("auth_filter_seconds_count{phase=\"lookup\"}"), "Auth filter lookup timer");
+        assertTrue(metrics.contains("auth_filter_seconds_count{phase=\"chain\"}"), "Auth filter chain timer");
+        assertTrue(metrics.contains("security_password_hashing_seconds_count{operation=\"matches\"}"),
+                "Password hashing timer");
+        assertTrue(metrics.contains("hikaricp_connections_active{"), "Connection pool gauges");
+    }
+
     private void createTestUser(String username, String email) {
         createTestUser(username, email, "password123");
     }
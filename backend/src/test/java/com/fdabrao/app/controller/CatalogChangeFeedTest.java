@@ -0,0 +1,217 @@
+package com.fdabrao.app.controller;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.model.User;
+import com.fdabrao.app.persistence.CategoriesRepository;
+import com.fdabrao.app.persistence.ProductRepository;
+import com.fdabrao.app.persistence.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Backpressure on the catalog change stream: a client that stops reading must not hold a sender thread. The
+ * feed runs with a single sender thread here, so every other client would wait behind a stuck one.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.catalog.changes.sender-threads=1",
+        "app.catalog.changes.send-timeout-ms=1000",
+        "app.catalog.changes.stall-check-ms=100"})
+class CatalogChangeFeedTest {
+
+    @LocalServerPort
+    private Integer port;
+
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            "postgres:16-alpine");
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    CategoriesRepository categoriesRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private Categories category;
+    private String userToken;
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.baseURI = "http://localhost:" + port;
+        productRepository.deleteAll();
+        categoriesRepository.deleteAll();
+        userRepository.deleteAll();
+
+        category = categoriesRepository.save(new Categories(null, "Pantry", "Dry goods", null, true));
+
+        User user = new User("feed_user", "feed_user@example.com", passwordEncoder.encode("password123"),
+                "Feed", "User", "USER", true);
+        user.setCreatedAt(LocalDateTime.now());
+        userRepository.save(user);
+
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put("username", "feed_user");
+        credentials.put("password", "password123");
+        Response response = given()
+                .contentType(ContentType.JSON)
+                .body(credentials)
+                .when()
+                .post("/api/auth/login");
+        response.then().statusCode(200);
+        userToken = response.jsonPath().getString("token");
+    }
+
+    /**
+     * Opens the change stream on a socket that is never read from, with a small receive buffer
+     */
+    private Socket openUnreadStream() throws Exception {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(4096);
+        socket.connect(new InetSocketAddress("localhost", port));
+        socket.getOutputStream().write(("GET /api/catalog/changes HTTP/1.1\r\n"
+                + "Host: localhost:" + port + "\r\n"
+                + "Authorization: Bearer " + userToken + "\r\n"
+                + "Accept: text/event-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().flush();
+        return socket;
+    }
+
+    /**
+     * Opens the change stream and feeds its lines into a queue from a background thread
+     */
+    private BlockingQueue<String> openChangeStream() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/catalog/changes"))
+                .header("Authorization", "Bearer " + userToken)
+                .header("Accept", "text/event-stream")
+                .build();
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient()
+                .send(request, HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> response.body().forEach(lines::add));
+        reader.setDaemon(true);
+        reader.start();
+        return lines;
+    }
+
+    /**
+     * Reads the next event from the stream as field name to value, skipping comments
+     */
+    private Map<String, String> nextEvent(BlockingQueue<String> lines) throws InterruptedException {
+        Map<String, String> event = new HashMap<>();
+        while (true) {
+            String line = lines.poll(10, TimeUnit.SECONDS);
+            if (line == null) {
+                throw new AssertionError("No event received, got " + event);
+            }
+            if (line.isEmpty()) {
+                if (!event.isEmpty()) {
+                    return event;
+                }
+            } else if (!line.startsWith(":")) {
+                int colon = line.indexOf(':');
+                event.merge(line.substring(0, colon), line.substring(colon + 1), (a, b) -> a + "\n" + b);
+            }
+        }
+    }
+
+    private double subscribers() {
+        return meterRegistry.get("catalog.changes.subscribers").gauge().value();
+    }
+
+    private double dropped() {
+        return meterRegistry.get("catalog.changes.dropped").counter().count();
+    }
+
+    private static void await(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Timed out waiting until " + description);
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    void clientThatStopsReadingShouldBeDroppedWithoutHoldingUpOthers() throws Exception {
+        double droppedBefore = dropped();
+        try (Socket stalled = openUnreadStream()) {
+            await(() -> subscribers() == 1, "the client is subscribed");
+
+            // Far more than the socket buffers hold, so a write to the client blocks
+            String description = "x".repeat(64 * 1024);
+            for (int i = 1; i <= 200; i++) {
+                productRepository.save(new Product(null, "Product " + i, description, 100L * i, true, category));
+            }
+            await(() -> subscribers() == 0, "the stalled client is dropped");
+            assertTrue(dropped() > droppedBefore);
+
+            // The only sender thread is free again
+            BlockingQueue<String> lines = openChangeStream();
+            assertEquals("ready", nextEvent(lines).get("event"));
+            productRepository.save(new Product(null, "Announced", "Small", 100, true, category));
+            Map<String, String> change = nextEvent(lines);
+            assertEquals("change", change.get("event"));
+            assertTrue(change.get("data").contains("\"name\":\"Announced\""));
+        }
+    }
+}
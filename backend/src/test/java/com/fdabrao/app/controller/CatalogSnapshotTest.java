@@ -0,0 +1,302 @@
+package com.fdabrao.app.controller;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.model.User;
+import com.fdabrao.app.persistence.CategoriesRepository;
+import com.fdabrao.app.persistence.ProductRepository;
+import com.fdabrao.app.persistence.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Pre-compressed catalog snapshots and their background rebuilds. Requests go through a plain HTTP client so
+ * the gzipped bodies can be seen as sent; a request answered without any SQL statement came from a snapshot.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CatalogSnapshotTest {
+
+    @LocalServerPort
+    private Integer port;
+
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            "postgres:16-alpine");
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    CategoriesRepository categoriesRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Categories category;
+    private String userToken;
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+        registry.add("security.denylist.refresh-interval-ms", () -> "3600000");
+        registry.add("security.last-login.flush-interval-ms", () -> "3600000");
+    }
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.baseURI = "http://localhost:" + port;
+        productRepository.deleteAll();
+        categoriesRepository.deleteAll();
+        userRepository.deleteAll();
+
+        category = categoriesRepository.save(new Categories(null, "Pantry", "Dry goods", null, true));
+
+        User user = new User("snapshot_user", "snapshot_user@example.com", passwordEncoder.encode("password123"),
+                "Snapshot", "User", "USER", true);
+        user.setCreatedAt(LocalDateTime.now());
+        userRepository.save(user);
+
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put("username", "snapshot_user");
+        credentials.put("password", "password123");
+        Response response = given()
+                .contentType(ContentType.JSON)
+                .body(credentials)
+                .when()
+                .post("/api/auth/login");
+        response.then().statusCode(200);
+        userToken = response.jsonPath().getString("token");
+    }
+
+    private void saveProducts(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            products.add(new Product(null, "Product " + i,
+                    "A description long enough to make the list worth compressing, number " + i,
+                    100L * i, true, category));
+        }
+        productRepository.saveAll(products);
+    }
+
+    private HttpResponse<byte[]> getGzipped(String path) throws Exception {
+        HttpResponse<byte[]> response = get(path, "Accept-Encoding", "gzip");
+        assertEquals(200, response.statusCode());
+        return response;
+    }
+
+    private HttpResponse<byte[]> get(String path, String... headers) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + userToken);
+        for (int i = 0; i < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static String etag(HttpResponse<byte[]> response) {
+        return response.headers().firstValue("ETag").orElseThrow();
+    }
+
+    private static boolean isGzipped(HttpResponse<byte[]> response) {
+        return response.headers().firstValue("Content-Encoding").filter("gzip"::equals).isPresent();
+    }
+
+    private static byte[] decoded(HttpResponse<byte[]> response) throws IOException {
+        if (!isGzipped(response)) {
+            return response.body();
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Waits until background rebuild passes have stopped for longer than the rebuild delay
+     */
+    private void awaitRebuildsSettled() throws InterruptedException {
+        Timer rebuilds = meterRegistry.get("catalog.snapshots.rebuild").timer();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        long seen = rebuilds.count();
+        long stableSince = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            long count = rebuilds.count();
+            if (count != seen) {
+                seen = count;
+                stableSince = System.nanoTime();
+            } else if (System.nanoTime() - stableSince > TimeUnit.MILLISECONDS.toNanos(500)) {
+                return;
+            }
+        }
+        throw new AssertionError("Snapshot rebuilds did not settle");
+    }
+
+    /**
+     * Requests the export until it is answered without touching the database, i.e. from the snapshot
+     */
+    private HttpResponse<byte[]> awaitExportSnapshot() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            statistics().clear();
+            HttpResponse<byte[]> response = getGzipped("/api/products/export");
+            if (statistics().getPrepareStatementCount() == 0) {
+                return response;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("The export was never served from its snapshot");
+    }
+
+    @Test
+    void categoryListShouldBeGzippedAndRebuiltInBackgroundAfterWrites() throws Exception {
+        saveProducts(30);
+        String path = "/api/products/by-category/" + category.getId();
+
+        HttpResponse<byte[]> first = getGzipped(path);
+        assertTrue(isGzipped(first), "A large list should be sent gzipped");
+        assertTrue(first.body().length < decoded(first).length / 2, "The list should compress well");
+        assertEquals(30, objectMapper.readTree(decoded(first)).size());
+        awaitRebuildsSettled();
+
+        long rebuildsBefore = meterRegistry.get("catalog.snapshots.rebuild").timer().count();
+        Map<String, Object> product = new HashMap<>();
+        product.put("name", "Product 31");
+        product.put("description", "Written through the API");
+        product.put("price", 12.5);
+        product.put("available", true);
+        product.put("category", Map.of("id", category.getId()));
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(product)
+                .when()
+                .post("/api/products")
+                .then()
+                .statusCode(200);
+        awaitRebuildsSettled();
+        assertTrue(meterRegistry.get("catalog.snapshots.rebuild").timer().count() > rebuildsBefore,
+                "The write should trigger a background rebuild");
+
+        // The rebuilt snapshot is ready before anyone asks for the list again
+        statistics().clear();
+        HttpResponse<byte[]> second = getGzipped(path);
+        assertEquals(0, statistics().getPrepareStatementCount());
+        assertTrue(isGzipped(second));
+        JsonNode products = objectMapper.readTree(decoded(second));
+        assertEquals(31, products.size());
+        assertEquals("Product 31", products.get(30).get("name").asText());
+    }
+
+    @Test
+    void exportShouldBeServedFromGzippedSnapshot() throws Exception {
+        saveProducts(3);
+
+        // The first gzipped request is streamed and starts building the snapshot
+        HttpResponse<byte[]> streamed = getGzipped("/api/products/export");
+        assertEquals(3, new String(decoded(streamed), StandardCharsets.UTF_8).split("\n").length);
+
+        HttpResponse<byte[]> snapshot = awaitExportSnapshot();
+        assertTrue(isGzipped(snapshot));
+        String[] lines = new String(decoded(snapshot), StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"name\":\"Product 1\""));
+
+        // A stale snapshot is never served; the export is streamed until the rebuild catches up
+        productRepository.save(new Product(null, "Product 4", "Added later", 400, true, category));
+        assertEquals(4, new String(decoded(getGzipped("/api/products/export")), StandardCharsets.UTF_8)
+                .split("\n").length);
+        lines = new String(decoded(awaitExportSnapshot()), StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+    }
+
+    @Test
+    void gzippedBodiesShouldHaveTheirOwnEtag() throws Exception {
+        saveProducts(30);
+
+        HttpResponse<byte[]> gzipped = getGzipped("/api/products");
+        assertTrue(isGzipped(gzipped));
+        HttpResponse<byte[]> identity = get("/api/products");
+        assertEquals(200, identity.statusCode());
+        assertFalse(isGzipped(identity));
+        String identityEtag = etag(identity);
+        assertEquals(identityEtag.substring(0, identityEtag.length() - 1) + "-gz\"", etag(gzipped));
+
+        // A client holding either encoding of the current list has a valid copy
+        assertEquals(304, get("/api/products", "Accept-Encoding", "gzip", "If-None-Match", identityEtag)
+                .statusCode());
+        assertEquals(304, get("/api/products", "If-None-Match", etag(gzipped)).statusCode());
+
+        String exportEtag = etag(awaitExportSnapshot());
+        assertTrue(exportEtag.endsWith("-gz\""), exportEtag);
+        assertEquals(304, get("/api/products/export", "Accept-Encoding", "gzip", "If-None-Match", exportEtag)
+                .statusCode());
+        productRepository.save(new Product(null, "Product 31", "Added later", 3100, true, category));
+        assertEquals(200, get("/api/products/export", "If-None-Match", exportEtag).statusCode());
+    }
+}
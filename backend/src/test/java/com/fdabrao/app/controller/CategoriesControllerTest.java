@@ -3,10 +3,16 @@ package com.fdabrao.app.controller;
 import static io.restassured.RestAssured.given;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Product;
 import com.fdabrao.app.model.User;
 import com.fdabrao.app.persistence.CategoriesRepository;
+import com.fdabrao.app.persistence.ProductRepository;
 import com.fdabrao.app.persistence.UserRepository;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
@@ -23,7 +29,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -41,12 +49,18 @@ class CategoriesControllerTest {
     @Autowired
     CategoriesRepository categoriesRepository;
 
+    @Autowired
+    ProductRepository productRepository;
+
     @Autowired
     UserRepository userRepository;
 
     @Autowired
     PasswordEncoder passwordEncoder;
 
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
     private String userToken;
 
     @BeforeAll
@@ -69,6 +83,7 @@ class CategoriesControllerTest {
     @BeforeEach
     void setUp() {
         RestAssured.baseURI = "http://localhost:" + port;
+        productRepository.deleteAll();
         categoriesRepository.deleteAll();
         userRepository.deleteAll();
 
@@ -129,6 +144,35 @@ class CategoriesControllerTest {
                 .body(".", Matchers.hasSize(2));
     }
 
+    @Test
+    void shouldGetCategoriesAsSmileAndReflectChanges() throws Exception {
+        categoriesRepository.save(new Categories(null, "Category 1", "Description 1", null, true));
+
+        Response first = given()
+                .header("Authorization", "Bearer " + userToken)
+                .accept("application/x-jackson-smile")
+                .when()
+                .get("/api/categories");
+        first.then()
+                .statusCode(200)
+                .contentType("application/x-jackson-smile");
+        JsonNode categories = new SmileMapper().readTree(first.asByteArray());
+        assertEquals(1, categories.size());
+        assertEquals("Category 1", categories.get(0).get("name").asText());
+
+        // A cached body is not served once the catalog has changed
+        categoriesRepository.save(new Categories(null, "Category 2", "Description 2", "Category 1", true));
+        Response second = given()
+                .header("Authorization", "Bearer " + userToken)
+                .accept("application/x-jackson-smile")
+                .when()
+                .get("/api/categories");
+        second.then().statusCode(200);
+        categories = new SmileMapper().readTree(second.asByteArray());
+        assertEquals(2, categories.size());
+        assertEquals("Category 1", categories.get(1).get("parentCategory").asText());
+    }
+
     @Test
     void shouldGetOnlyActiveCategories() {
         List<Categories> categories = List.of(
@@ -330,6 +374,41 @@ class CategoriesControllerTest {
         assertFalse(categoriesRepository.existsById(category.getId()));
     }
 
+    @Test
+    void categoryReadsShouldReflectCommittedChanges() {
+        Categories category = new Categories(
+                null, "Cached Category", "Original Description", null, true);
+        categoriesRepository.save(category);
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/categories/{id}", category.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("description", Matchers.equalTo("Original Description"));
+
+        category.setDescription("Changed Description");
+        categoriesRepository.save(category);
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/categories/{id}", category.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("description", Matchers.equalTo("Changed Description"));
+
+        categoriesRepository.deleteById(category.getId());
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/categories/{id}", category.getId())
+                .then()
+                .statusCode(HttpStatus.NOT_FOUND.value());
+    }
+
     @Test
     void shouldReturnNotFoundForNonExistentCategory() {
         given()
@@ -340,4 +419,141 @@ class CategoriesControllerTest {
                 .then()
                 .statusCode(HttpStatus.NOT_FOUND.value());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void shouldAggregateCategoryStatsThroughHierarchy() {
+        Categories electronics = categoriesRepository.save(
+                new Categories(null, "Electronics", "Description", null, true));
+        Categories phones = categoriesRepository.save(
+                new Categories(null, "Phones", "Description", "Electronics", true));
+        Categories empty = categoriesRepository.save(
+                new Categories(null, "Empty", "Description", null, true));
+        productRepository.saveAll(List.of(
+                new Product(null, "TV", "Description", 50000, true, electronics),
+                new Product(null, "Phone A", "Description", 10000, true, phones),
+                new Product(null, "Phone B", "Description", 30000, false, phones)));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/categories/{id}/stats", electronics.getId())
+                .then()
+                .statusCode(200)
+                .body("categoryId", Matchers.equalTo(electronics.getId().intValue()))
+                .body("own.productCount", Matchers.equalTo(1))
+                .body("own.availableCount", Matchers.equalTo(1))
+                .body("own.minPrice", Matchers.equalTo(500.0f))
+                .body("rollup.productCount", Matchers.equalTo(3))
+                .body("rollup.availableCount", Matchers.equalTo(2))
+                .body("rollup.minPrice", Matchers.equalTo(100.0f))
+                .body("rollup.avgPrice", Matchers.equalTo(300.0f))
+                .body("rollup.maxPrice", Matchers.equalTo(500.0f));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/categories/stats")
+                .then()
+                .statusCode(200)
+                .body("categoryId", Matchers.contains(
+                        electronics.getId().intValue(), phones.getId().intValue(), empty.getId().intValue()))
+                .body("find { it.categoryId == %s }.rollup.productCount".formatted(phones.getId()),
+                        Matchers.equalTo(2))
+                .body("find { it.categoryId == %s }.own.productCount".formatted(empty.getId()),
+                        Matchers.equalTo(0))
+                .body("find { it.categoryId == %s }.own.avgPrice".formatted(empty.getId()),
+                        Matchers.nullValue());
+    }
+
+    @Test
+    void shouldReturnNotFoundForStatsOfNonExistentCategory() {
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/categories/{id}/stats", 999L)
+                .then()
+                .statusCode(HttpStatus.NOT_FOUND.value());
+    }
+
+    @Test
+    void shouldReturnSubtreeAndKeepHierarchyConsistent() {
+        Categories root = categoriesRepository.save(
+                new Categories(null, "Root", "Description", null, true));
+        Categories child = categoriesRepository.save(
+                new Categories(null, "Child", "Description", "Root", true));
+        Categories grandchild = new Categories(null, "Grandchild", "Description", null, true);
+        grandchild.setParentId(child.getId());
+        grandchild = categoriesRepository.save(grandchild);
+        categoriesRepository.save(new Categories(null, "Elsewhere", "Description", null, true));
+
+        assertEquals(root.getId(), child.getParentId());
+        assertEquals("Child", grandchild.getParentCategory());
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/categories/{id}/subtree", root.getId())
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.contains("Root", "Child", "Grandchild"));
+
+        // Children follow a renamed parent
+        Categories renamed = new Categories(child.getId(), "Branch", "Description", "Root", true);
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(renamed)
+                .when()
+                .put("/api/categories/{id}", child.getId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("parentId", Matchers.equalTo(root.getId().intValue()));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/categories/{id}", grandchild.getId())
+                .then()
+                .statusCode(200)
+                .body("parentCategory", Matchers.equalTo("Branch"))
+                .body("parentId", Matchers.equalTo(child.getId().intValue()));
+
+        // Moving a category below its own descendant would make a cycle
+        Categories cyclic = new Categories(root.getId(), "Root", "Description", "Grandchild", true);
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(cyclic)
+                .when()
+                .put("/api/categories/{id}", root.getId())
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("message", Matchers.equalTo("A category cannot be placed under itself or its descendants"));
+
+        // The database rejects it for writes that bypass the API too, so both parent columns keep agreeing
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "UPDATE category SET parent_category = 'Grandchild' WHERE id = ?", root.getId()));
+        Map<String, Object> rootRow = jdbcTemplate.queryForMap(
+                "SELECT parent_id, parent_category FROM category WHERE id = ?", root.getId());
+        assertNull(rootRow.get("parent_id"));
+        assertNull(rootRow.get("parent_category"));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/categories/{id}/subtree", child.getId())
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.contains("Branch", "Grandchild"));
+    }
+
+    @Test
+    void shouldReturnNotFoundForSubtreeOfNonExistentCategory() {
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/categories/{id}/subtree", 999L)
+                .then()
+                .statusCode(HttpStatus.NOT_FOUND.value());
+    }
+}
@@ -5,6 +5,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fdabrao.app.catalog.CategoryCache;
 import com.fdabrao.app.model.Categories;
 import com.fdabrao.app.model.Product;
 import com.fdabrao.app.model.User;
@@ -14,10 +18,24 @@ import com.fdabrao.app.persistence.UserRepository;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -51,6 +69,12 @@ class ProductControllerTest {
     @Autowired
     PasswordEncoder passwordEncoder;
 
+    @Autowired
+    CategoryCache categoryCache;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
     private String userToken;
     private Categories category1;
     private Categories category2;
@@ -70,6 +94,11 @@ class ProductControllerTest {
         registry.add("spring.datasource.url", postgres::getJdbcUrl);
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+        // Keep background refreshes from adding statements to the counts asserted below
+        registry.add("security.denylist.refresh-interval-ms", () -> "3600000");
+        registry.add("security.last-login.flush-interval-ms", () -> "3600000");
+        registry.add("app.catalog.snapshots.rebuild-delay-ms", () -> "3600000");
     }
 
     @BeforeEach
@@ -127,8 +156,8 @@ class ProductControllerTest {
     @Test
     void authenticatedUserShouldGetAllProducts() {
         List<Product> products = List.of(
-                new Product(null, "Food 1", "Description 1", 10.0, true, category1),
-                new Product(null, "Food 2", "Description 2", 20.0, true, category2));
+                new Product(null, "Food 1", "Description 1", 1000, true, category1),
+                new Product(null, "Food 2", "Description 2", 2000, true, category2));
         productRepository.saveAll(products);
 
         given()
@@ -141,11 +170,187 @@ class ProductControllerTest {
                 .body(".", Matchers.hasSize(2));
     }
 
+    @Test
+    void productListsShouldBeServedWithOneStatementPerRequest() {
+        List<Product> products = List.of(
+                new Product(null, "Food 1", "Description 1", 1000, true, category1),
+                new Product(null, "Food 2", "Description 2", 2000, true, category2),
+                new Product(null, "Food 3", "Description 3", 3000, true, category2));
+        productRepository.saveAll(products);
+        categoryCache.warmUp();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("sort", "price")
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(3))
+                .body("[0].categoryName", Matchers.equalTo(category1.getName()))
+                .body("[0].category", Matchers.nullValue());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/products/by-category/{categoryId}", category2.getId())
+                .then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(2))
+                .body("[1].categoryName", Matchers.equalTo(category2.getName()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void catalogReadsShouldBeRevalidatedWithEtags() {
+        productRepository.save(new Product(null, "Food 1", "Description 1", 1000, true, category1));
+
+        Response first = given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/products");
+        first.then().statusCode(200);
+        String etag = first.getHeader("ETag");
+        assertTrue(etag != null && etag.startsWith("\""), "A strong ETag should be returned");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .header("If-None-Match", etag)
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(304);
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .header("If-None-Match", etag)
+                .queryParam("activeOnly", true)
+                .when()
+                .get("/api/categories")
+                .then()
+                .statusCode(304);
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        Map<String, Object> newProduct = new HashMap<>();
+        newProduct.put("name", "Food 2");
+        newProduct.put("description", "Description 2");
+        newProduct.put("price", 20.0);
+        newProduct.put("available", true);
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(newProduct)
+                .when()
+                .post("/api/products")
+                .then()
+                .statusCode(200);
+
+        Response changed = given()
+                .header("Authorization", "Bearer " + userToken)
+                .header("If-None-Match", etag)
+                .when()
+                .get("/api/products");
+        changed.then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(2));
+        assertFalse(etag.equals(changed.getHeader("ETag")), "The ETag should change after a write");
+    }
+
+    @Test
+    void productListsShouldBeNegotiatedAsBinaryRepresentations() throws Exception {
+        productRepository.save(new Product(null, "Food 1", "Description 1", 1599, true, category1));
+        productRepository.save(new Product(null, "Food 2", "Description 2", 250, false, category2));
+
+        Response json = given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/products");
+        json.then()
+                .statusCode(200)
+                .contentType(ContentType.JSON)
+                .header("Vary", Matchers.containsString("Accept"));
+
+        Response cbor = given()
+                .header("Authorization", "Bearer " + userToken)
+                .accept("application/cbor")
+                .when()
+                .get("/api/products");
+        cbor.then()
+                .statusCode(200)
+                .contentType("application/cbor");
+        JsonNode cborProducts = new CBORMapper().readTree(cbor.asByteArray());
+        assertEquals(2, cborProducts.size());
+        assertEquals("Food 1", cborProducts.get(0).get("name").asText());
+        assertEquals(new BigDecimal("15.99"), cborProducts.get(0).get("price").decimalValue());
+        assertEquals(category2.getName(), cborProducts.get(1).get("categoryName").asText());
+
+        Response smile = given()
+                .header("Authorization", "Bearer " + userToken)
+                .accept("application/x-jackson-smile")
+                .when()
+                .get("/api/products");
+        smile.then()
+                .statusCode(200)
+                .contentType("application/x-jackson-smile");
+        JsonNode smileProducts = new SmileMapper().readTree(smile.asByteArray());
+        assertEquals(new BigDecimal("2.5"), smileProducts.get(1).get("price").decimalValue());
+
+        // Every representation has its own validator
+        String jsonEtag = json.getHeader("ETag");
+        String cborEtag = cbor.getHeader("ETag");
+        assertFalse(jsonEtag.equals(cborEtag), "JSON and CBOR bodies should have different ETags");
+        assertFalse(cborEtag.equals(smile.getHeader("ETag")), "CBOR and Smile bodies should have different ETags");
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .header("If-None-Match", jsonEtag)
+                .accept("application/cbor")
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(200);
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .header("If-None-Match", cborEtag)
+                .accept("application/cbor")
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(304);
+
+        // The serialized page is kept until the catalog changes
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Response cached = given()
+                .header("Authorization", "Bearer " + userToken)
+                .accept("application/cbor")
+                .when()
+                .get("/api/products");
+        cached.then().statusCode(200);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        // Nor is a transaction opened or a connection taken for it
+        assertEquals(0, statistics.getConnectCount());
+        assertTrue(Arrays.equals(cbor.asByteArray(), cached.asByteArray()));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .accept("text/html")
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(406);
+    }
+
     @Test
     void unauthenticatedUserShouldNotGetAllProducts() {
         List<Product> products = List.of(
-                new Product(null, "Food 1", "Description 1", 10.0, true, category1),
-                new Product(null, "Food 2", "Description 2", 20.0, true, category2));
+                new Product(null, "Food 1", "Description 1", 1000, true, category1),
+                new Product(null, "Food 2", "Description 2", 2000, true, category2));
         productRepository.saveAll(products);
 
         given()
@@ -156,9 +361,434 @@ class ProductControllerTest {
                 .statusCode(401);
     }
 
+    @Test
+    void authenticatedUserShouldPageThroughProductsWithCursor() {
+        List<Product> products = List.of(
+                new Product(null, "Food A", "Description A", 3000, true, category1),
+                new Product(null, "Food B", "Description B", 1000, true, category1),
+                new Product(null, "Food C", "Description C", 2000, true, category2));
+        productRepository.saveAll(products);
+
+        Response firstPage = given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("sort", "price")
+                .queryParam("limit", 2)
+                .when()
+                .get("/api/products");
+
+        firstPage.then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(2))
+                .body("[0].name", Matchers.equalTo("Food B"))
+                .body("[1].name", Matchers.equalTo("Food C"));
+
+        String cursor = firstPage.getHeader("X-Next-Cursor");
+        assertTrue(cursor != null && !cursor.isBlank(), "A next cursor should be returned");
+
+        Response lastPage = given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("sort", "price")
+                .queryParam("limit", 2)
+                .queryParam("cursor", cursor)
+                .when()
+                .get("/api/products");
+
+        lastPage.then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(1))
+                .body("[0].name", Matchers.equalTo("Food A"));
+        assertEquals(null, lastPage.getHeader("X-Next-Cursor"));
+    }
+
+    @Test
+    void authenticatedUserShouldFilterProductsByCategoryAndPrice() {
+        List<Product> products = List.of(
+                new Product(null, "Food 1", "Description 1", 500, true, category1),
+                new Product(null, "Food 2", "Description 2", 1500, false, category1),
+                new Product(null, "Food 3", "Description 3", 2500, true, category1),
+                new Product(null, "Food 4", "Description 4", 1500, true, category2));
+        productRepository.saveAll(products);
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("categoryId", category1.getId())
+                .queryParam("minPrice", 10)
+                .queryParam("maxPrice", 30)
+                .queryParam("sort", "price")
+                .queryParam("direction", "desc")
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(2))
+                .body("[0].name", Matchers.equalTo("Food 3"))
+                .body("[1].name", Matchers.equalTo("Food 2"));
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("categoryId", category1.getId())
+                .queryParam("available", false)
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(1))
+                .body("[0].name", Matchers.equalTo("Food 2"));
+    }
+
+    @Test
+    void shouldRejectUnsupportedProductSort() {
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("sort", "description")
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void authenticatedUserShouldExportCatalogAsNdjson() {
+        List<Product> products = List.of(
+                new Product(null, "Food 1", "Description 1", 1000, true, category1),
+                new Product(null, "Food 2", "Description 2", 2000, true, category2),
+                new Product(null, "Food 3", "Description 3", 3000, false, category2));
+        productRepository.saveAll(products);
+
+        Response response = given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/products/export");
+
+        response.then()
+                .statusCode(200)
+                .contentType("application/x-ndjson");
+
+        String[] lines = response.asString().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"name\":\"Food 1\""));
+        assertTrue(lines[2].contains("\"category\":{"));
+    }
+
+    @Test
+    void unauthenticatedUserShouldNotExportCatalog() {
+        given()
+                .when()
+                .get("/api/products/export")
+                .then()
+                .statusCode(401);
+    }
+
+    /**
+     * Opens the catalog change stream and feeds its lines into a queue from a background thread
+     */
+    private BlockingQueue<String> openChangeStream(String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/catalog/changes"))
+                .header("Authorization", "Bearer " + userToken)
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient()
+                .send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> response.body().forEach(lines::add));
+        reader.setDaemon(true);
+        reader.start();
+        return lines;
+    }
+
+    /**
+     * Reads the next event from the stream as field name to value, skipping comments
+     */
+    private Map<String, String> nextEvent(BlockingQueue<String> lines) throws InterruptedException {
+        Map<String, String> event = new HashMap<>();
+        while (true) {
+            String line = lines.poll(10, TimeUnit.SECONDS);
+            if (line == null) {
+                throw new AssertionError("No event received, got " + event);
+            }
+            if (line.isEmpty()) {
+                if (!event.isEmpty()) {
+                    return event;
+                }
+            } else if (!line.startsWith(":")) {
+                int colon = line.indexOf(':');
+                event.merge(line.substring(0, colon), line.substring(colon + 1), (a, b) -> a + "\n" + b);
+            }
+        }
+    }
+
+    @Test
+    void changeStreamShouldDeliverCommittedChangesAndResumeFromLastEventId() throws Exception {
+        BlockingQueue<String> lines = openChangeStream(null);
+        Map<String, String> ready = nextEvent(lines);
+        assertEquals("ready", ready.get("event"));
+
+        Map<String, Object> newProduct = new HashMap<>();
+        newProduct.put("name", "Streamed Product");
+        newProduct.put("description", "Announced on the change stream");
+        newProduct.put("price", 4.5);
+        newProduct.put("available", true);
+        Integer id = given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(newProduct)
+                .when()
+                .post("/api/products")
+                .then()
+                .statusCode(200)
+                .extract()
+                .path("id");
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .delete("/api/products/{id}", id)
+                .then()
+                .statusCode(200);
+
+        Map<String, String> created = nextEvent(lines);
+        assertEquals("change", created.get("event"));
+        assertTrue(created.get("data").contains("\"entityType\":\"PRODUCT\""));
+        assertTrue(created.get("data").contains("\"changeType\":\"CREATED\""));
+        assertTrue(created.get("data").contains("\"price\":4.50"));
+        Map<String, String> deleted = nextEvent(lines);
+        assertTrue(deleted.get("data").contains("\"changeType\":\"DELETED\""));
+        assertTrue(Long.parseLong(deleted.get("id")) > Long.parseLong(created.get("id")));
+
+        // A client that reconnects after the ready event is sent both changes again
+        BlockingQueue<String> resumed = openChangeStream(ready.get("id"));
+        assertEquals("ready", nextEvent(resumed).get("event"));
+        assertEquals(created.get("id"), nextEvent(resumed).get("id"));
+        assertEquals(deleted.get("id"), nextEvent(resumed).get("id"));
+    }
+
+    @Test
+    void changeStreamShouldTellClientsWithUnknownEventIdsToReset() throws Exception {
+        BlockingQueue<String> lines = openChangeStream("1");
+
+        assertEquals("reset", nextEvent(lines).get("event"));
+        assertEquals("ready", nextEvent(lines).get("event"));
+    }
+
+    @Test
+    void deltaSyncShouldReturnOnlyRowsChangedSinceTheMark() {
+        long mark = productRepository.findSettledTransactionMark();
+        Product kept = productRepository.save(new Product(null, "Kept", "Description", 1000, true, category1));
+        Product removed = productRepository.save(new Product(null, "Removed", "Description", 2000, true, category1));
+        kept.setName("Kept and renamed");
+        productRepository.save(kept);
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .delete("/api/products/{id}", removed.getId())
+                .then()
+                .statusCode(200);
+
+        Response changes = given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("since", mark)
+                .when()
+                .get("/api/products/changes");
+        changes.then()
+                .statusCode(200)
+                .header("ETag", Matchers.nullValue())
+                .body("products.name", Matchers.contains("Kept and renamed"))
+                .body("deletedProductIds", Matchers.contains(removed.getId().intValue()))
+                .body("categories", Matchers.empty())
+                .body("deletedCategoryIds", Matchers.empty());
+        long highWaterMark = changes.jsonPath().getLong("highWaterMark");
+        assertTrue(highWaterMark > mark);
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("since", highWaterMark)
+                .when()
+                .get("/api/products/changes")
+                .then()
+                .statusCode(200)
+                .body("products", Matchers.empty())
+                .body("deletedProductIds", Matchers.empty());
+    }
+
+    @Test
+    void deltaSyncShouldRequireReloadOncePrunedTombstonesAreNeeded() {
+        Product product = productRepository.save(new Product(null, "Gone", "Description", 1000, true, category1));
+        productRepository.delete(product);
+        productRepository.pruneTombstones(LocalDateTime.now().plusDays(1));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("since", 0)
+                .when()
+                .get("/api/products/changes")
+                .then()
+                .statusCode(410);
+    }
+
+    @Test
+    void authenticatedUserShouldCreateProductsInBatch() {
+        Map<String, Object> valid = new HashMap<>();
+        valid.put("name", "Batch Product");
+        valid.put("description", "Batch Description");
+        valid.put("price", 9.99);
+        valid.put("available", true);
+        valid.put("category", Map.of("id", category1.getId()));
+
+        Map<String, Object> unknownCategory = new HashMap<>(valid);
+        unknownCategory.put("name", "Orphan Product");
+        unknownCategory.put("category", Map.of("id", 999L));
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(List.of(valid, unknownCategory))
+                .when()
+                .post("/api/products/batch")
+                .then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(2))
+                .body("[0].status", Matchers.equalTo(201))
+                .body("[0].id", Matchers.notNullValue())
+                .body("[1].status", Matchers.equalTo(400))
+                .body("[1].message", Matchers.equalTo("Referenced category not found"));
+
+        assertEquals(1, productRepository.count());
+    }
+
+    @Test
+    void authenticatedUserShouldUpdateAndDeleteProductsInBatch() {
+        Product first = productRepository.save(
+                new Product(null, "Food 1", "Description 1", 1000, true, category1));
+        Product second = productRepository.save(
+                new Product(null, "Food 2", "Description 2", 2000, true, category1));
+
+        Map<String, Object> update = new HashMap<>();
+        update.put("id", first.getId());
+        update.put("name", "Food 1 Updated");
+        update.put("description", "Description 1");
+        update.put("price", 12.5);
+        update.put("available", false);
+        update.put("category", Map.of("id", category2.getId()));
+
+        Map<String, Object> missing = new HashMap<>(update);
+        missing.put("id", 999999L);
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(List.of(update, missing))
+                .when()
+                .put("/api/products/batch")
+                .then()
+                .statusCode(200)
+                .body("[0].status", Matchers.equalTo(200))
+                .body("[1].status", Matchers.equalTo(404));
+
+        Product updated = productRepository.findById(first.getId()).orElseThrow();
+        assertEquals("Food 1 Updated", updated.getName());
+        assertEquals(1250, updated.getPrice());
+        assertEquals(category2.getId(), updated.getCategory().getId());
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(List.of(first.getId(), second.getId(), 999999L))
+                .when()
+                .delete("/api/products/batch")
+                .then()
+                .statusCode(200)
+                .body("[0].status", Matchers.equalTo(204))
+                .body("[1].status", Matchers.equalTo(204))
+                .body("[2].status", Matchers.equalTo(404));
+
+        assertEquals(0, productRepository.count());
+    }
+
+    @Test
+    void authenticatedUserShouldSearchProductsByPrefixWithRanking() {
+        List<Product> products = List.of(
+                new Product(null, "Chocolate Croissant", "Butter croissant", 299, true, category1),
+                new Product(null, "Croissant", "Plain croissant with chocolate chips", 199, true, category1),
+                new Product(null, "Sourdough Bread", "Freshly baked loaf", 399, true, category2));
+        productRepository.saveAll(products);
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("q", "choc crois")
+                .when()
+                .get("/api/products/search")
+                .then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(2))
+                .body("[0].name", Matchers.equalTo("Chocolate Croissant"))
+                .body("[0].categoryName", Matchers.equalTo(category1.getName()))
+                .body("[1].name", Matchers.equalTo("Croissant"));
+
+        productRepository.delete(products.get(0));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("q", "chocolate")
+                .when()
+                .get("/api/products/search")
+                .then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(1))
+                .body("[0].name", Matchers.equalTo("Croissant"));
+    }
+
+    @Test
+    void searchShouldFollowPriceAndTextUpdates() {
+        Product product = productRepository.save(
+                new Product(null, "Smoked Salmon", "Cold smoked fillet", 1299, true, category1));
+
+        // A price change leaves the terms alone and shows up in the hit
+        product.setPrice(999);
+        productRepository.save(product);
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("q", "salmon")
+                .when()
+                .get("/api/products/search")
+                .then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(1))
+                .body("[0].price", Matchers.equalTo(9.99f));
+
+        // A new name replaces the old terms
+        product.setName("Smoked Trout");
+        productRepository.save(product);
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("q", "salmon")
+                .when()
+                .get("/api/products/search")
+                .then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(0));
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("q", "smoked trout")
+                .when()
+                .get("/api/products/search")
+                .then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(1))
+                .body("[0].price", Matchers.equalTo(9.99f));
+    }
+
     @Test
     void authenticatedUserShouldGetProductById() {
-        Product product = new Product(null, "Product 1", "Description 1", 10.0, true, category1);
+        Product product = new Product(null, "Product 1", "Description 1", 1000, true, category1);
         productRepository.save(product);
 
         given()
@@ -171,7 +801,7 @@ class ProductControllerTest {
                 .body("id", Matchers.equalTo(product.getId().intValue()))
                 .body("name", Matchers.equalTo(product.getName()))
                 .body("description", Matchers.equalTo(product.getDescription()))
-                .body("price", Matchers.equalTo(product.getPrice().floatValue()))
+                .body("price", Matchers.equalTo(10.0f))
                 .body("available", Matchers.equalTo(product.getAvailable()))
                 .body("category.id", Matchers.equalTo(category1.getId().intValue()))
                 .body("category.name", Matchers.equalTo(category1.getName()));
@@ -179,7 +809,7 @@ class ProductControllerTest {
 
     @Test
     void unauthenticatedUserShouldNotGetProductById() {
-        Product product = new Product(null, "Product 1", "Description 1", 10.0, true, category1);
+        Product product = new Product(null, "Product 1", "Description 1", 1000, true, category1);
         productRepository.save(product);
 
         given()
@@ -193,9 +823,9 @@ class ProductControllerTest {
     @Test
     void authenticatedUserShouldGetProductsByCategory() {
         List<Product> products = List.of(
-                new Product(null, "Product 1-1", "Description 1-1", 10.0, true, category1),
-                new Product(null, "Product 1-2", "Description 1-2", 15.0, true, category1),
-                new Product(null, "Product 2-1", "Description 2-1", 20.0, true, category2));
+                new Product(null, "Product 1-1", "Description 1-1", 1000, true, category1),
+                new Product(null, "Product 1-2", "Description 1-2", 1500, true, category1),
+                new Product(null, "Product 2-1", "Description 2-1", 2000, true, category2));
         productRepository.saveAll(products);
 
         given()
@@ -206,8 +836,40 @@ class ProductControllerTest {
                 .then()
                 .statusCode(200)
                 .body(".", Matchers.hasSize(2))
-                .body("[0].category.id", Matchers.equalTo(category1.getId().intValue()))
-                .body("[1].category.id", Matchers.equalTo(category1.getId().intValue()));
+                .body("[0].categoryId", Matchers.equalTo(category1.getId().intValue()))
+                .body("[0].categoryName", Matchers.equalTo(category1.getName()))
+                .body("[1].categoryId", Matchers.equalTo(category1.getId().intValue()));
+    }
+
+    @Test
+    void shouldGetProductsOfCategoryAndItsDescendants() {
+        Categories subcategory = categoriesRepository.save(
+                new Categories(null, "Fresh food", "Description", category1.getName(), true));
+        Categories nested = categoriesRepository.save(
+                new Categories(null, "Fruit", "Description", subcategory.getName(), true));
+        productRepository.saveAll(List.of(
+                new Product(null, "Bread", "Description", 300, true, category1),
+                new Product(null, "Milk", "Description", 150, true, subcategory),
+                new Product(null, "Apple", "Description", 50, true, nested),
+                new Product(null, "Soap", "Description", 200, true, category2)));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/products/by-category/{categoryId}", category1.getId())
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.contains("Bread"));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("includeDescendants", true)
+                .when()
+                .get("/api/products/by-category/{categoryId}", category1.getId())
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.contains("Bread", "Milk", "Apple"))
+                .body("[2].categoryName", Matchers.equalTo("Fruit"));
     }
 
     @Test
@@ -239,6 +901,80 @@ class ProductControllerTest {
         assertEquals(1, productRepository.count());
     }
 
+    @Test
+    void pricesShouldBeStoredAndFilteredInExactCents() {
+        Map<String, Object> newProductMap = new HashMap<>();
+        newProductMap.put("name", "Exact Product");
+        newProductMap.put("description", "Priced at a value binary floating point cannot hold");
+        newProductMap.put("price", 0.1);
+        newProductMap.put("available", true);
+
+        Integer id = given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(newProductMap)
+                .when()
+                .post("/api/products")
+                .then()
+                .statusCode(200)
+                .extract()
+                .path("id");
+        assertEquals(10, productRepository.findById(id.longValue()).orElseThrow().getPrice());
+
+        // 0.101 rounds up to 0.11 as a lower bound, 0.109 down to 0.10 as an upper one
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("minPrice", "0.101")
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(0));
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("minPrice", "0.10")
+                .queryParam("maxPrice", "0.109")
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(200)
+                .body(".", Matchers.hasSize(1))
+                .body("[0].price", Matchers.equalTo(0.1f));
+    }
+
+    @Test
+    void pricesWithFractionsOfACentShouldBeRejected() {
+        Map<String, Object> newProductMap = new HashMap<>();
+        newProductMap.put("name", "Inexact Product");
+        newProductMap.put("description", "Priced below a cent");
+        newProductMap.put("price", 15.999);
+        newProductMap.put("available", true);
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(newProductMap)
+                .when()
+                .post("/api/products")
+                .then()
+                .statusCode(400)
+                .body("message", Matchers.equalTo("Invalid value for price: Price must be in whole cents"));
+
+        assertEquals(0, productRepository.count());
+    }
+
+    @Test
+    void priceFiltersOutOfRangeShouldBeRejected() {
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("minPrice", "100000000000000000000")
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(400)
+                .body("message", Matchers.equalTo("minPrice is out of range"));
+    }
+
     @Test
     void shouldNotCreateProductWithNonExistentCategory() {
         Map<String, Object> newProductMap = new HashMap<>();
@@ -266,7 +1002,7 @@ class ProductControllerTest {
 
     @Test
     void authenticatedUserShouldUpdateProduct() {
-        Product originalProduct = new Product(null, "Original Product", "Original Description", 10.0, true, category1);
+        Product originalProduct = new Product(null, "Original Product", "Original Description", 1000, true, category1);
         productRepository.save(originalProduct);
 
         Map<String, Object> updatedProductMap = new HashMap<>();
@@ -301,7 +1037,7 @@ class ProductControllerTest {
 
     @Test
     void authenticatedUserShouldDeleteProduct() {
-        Product product = new Product(null, "Product to Delete", "Will be deleted", 15.0, true, category1);
+        Product product = new Product(null, "Product to Delete", "Will be deleted", 1500, true, category1);
         product = productRepository.save(product);
         Long productId = product.getId();
 
@@ -335,7 +1071,7 @@ class ProductControllerTest {
 
     @Test
     void unAuthenticatedUserShouldNotDeleteProduct() {
-        Product product = new Product(null, "Product to Delete", "Will be deleted", 15.0, true, category1);
+        Product product = new Product(null, "Product to Delete", "Will be deleted", 1500, true, category1);
         product = productRepository.save(product);
         Long productId = product.getId();
 
@@ -0,0 +1,340 @@
+package com.fdabrao.app.controller;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.fdabrao.app.AppApplication;
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.model.User;
+import com.fdabrao.app.persistence.CategoriesRepository;
+import com.fdabrao.app.persistence.ProductRepository;
+import com.fdabrao.app.persistence.UserRepository;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * The catalog read API on the reactive stack (WebFlux and R2DBC). Test data is written through the JPA
+ * repositories, which exist in both stacks.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class ReactiveApiTest {
+
+    @LocalServerPort
+    private Integer port;
+
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            "postgres:16-alpine");
+
+    @Autowired
+    CategoriesRepository categoriesRepository;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Value("${spring.datasource.url}")
+    String datasourceUrl;
+
+    @Value("${spring.datasource.username}")
+    String datasourceUsername;
+
+    @Value("${spring.datasource.password}")
+    String datasourcePassword;
+
+    @Value("${spring.autoconfigure.exclude}")
+    String excludedAutoConfigurations;
+
+    private String userToken;
+    private Categories food;
+    private Categories fruit;
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.baseURI = "http://localhost:" + port;
+        productRepository.deleteAll();
+        categoriesRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User("user_test", "user_test@example.com", passwordEncoder.encode("user_password"),
+                "User", "Test", "USER", true);
+        user.setCreatedAt(LocalDateTime.now());
+        userRepository.save(user);
+
+        food = categoriesRepository.save(new Categories(null, "Food", "Description", null, true));
+        fruit = categoriesRepository.save(new Categories(null, "Fruit", "Description", "Food", true));
+        productRepository.saveAll(List.of(
+                new Product(null, "Bread", "Description", 300, true, food),
+                new Product(null, "Apple", "Description", 50, true, fruit),
+                new Product(null, "Cherry", "Description", 1299, false, fruit)));
+
+        userToken = getAuthToken("user_test", "user_password");
+    }
+
+    private String getAuthToken(String username, String password) {
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put("username", username);
+        credentials.put("password", password);
+
+        Response response = given()
+                .contentType(ContentType.JSON)
+                .body(credentials)
+                .when()
+                .post("/api/auth/login");
+
+        response.then()
+                .statusCode(200)
+                .body("username", Matchers.equalTo(username));
+
+        return response.jsonPath().getString("token");
+    }
+
+    @Test
+    void shouldRejectInvalidCredentialsAndMissingTokens() {
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("username", "user_test", "password", "wrong"))
+                .when()
+                .post("/api/auth/login")
+                .then()
+                .statusCode(HttpStatus.UNAUTHORIZED.value())
+                .body("message", Matchers.equalTo("Invalid credentials"));
+
+        given()
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(HttpStatus.UNAUTHORIZED.value());
+
+        given()
+                .header("Authorization", "Bearer not-a-token")
+                .when()
+                .get("/api/categories")
+                .then()
+                .statusCode(HttpStatus.UNAUTHORIZED.value());
+    }
+
+    @Test
+    void tokensShouldBeAcceptedAcrossInstancesSharingTheSecret() {
+        // A second instance on the servlet stack, as deployed next to the reactive ones. Without WebClient its
+        // shutdown leaves alone the global Netty resources this instance's server runs on.
+        String webClient = "org.springframework.boot.autoconfigure.web.reactive.function.client.";
+        try (ConfigurableApplicationContext servlet = new SpringApplicationBuilder(AppApplication.class).run(
+                "--spring.main.web-application-type=servlet",
+                "--spring.autoconfigure.exclude=" + excludedAutoConfigurations
+                        + "," + webClient + "ClientHttpConnectorAutoConfiguration"
+                        + "," + webClient + "WebClientAutoConfiguration",
+                "--server.port=0",
+                "--spring.datasource.url=" + datasourceUrl,
+                "--spring.datasource.username=" + datasourceUsername,
+                "--spring.datasource.password=" + datasourcePassword)) {
+            String servletUri = "http://localhost:"
+                    + ((WebServerApplicationContext) servlet).getWebServer().getPort();
+
+            given()
+                    .baseUri(servletUri)
+                    .header("Authorization", "Bearer " + userToken)
+                    .when()
+                    .get("/api/products")
+                    .then()
+                    .statusCode(200)
+                    .body("name", Matchers.hasSize(3));
+
+            String servletToken = given()
+                    .baseUri(servletUri)
+                    .contentType(ContentType.JSON)
+                    .body(Map.of("username", "user_test", "password", "user_password"))
+                    .when()
+                    .post("/api/auth/login")
+                    .then()
+                    .statusCode(200)
+                    .extract()
+                    .path("token");
+
+            given()
+                    .header("Authorization", "Bearer " + servletToken)
+                    .when()
+                    .get("/api/products")
+                    .then()
+                    .statusCode(200)
+                    .body("name", Matchers.hasSize(3));
+        }
+    }
+
+    @Test
+    void shouldRefuseWritesWhichOnlyTheServletStackServes() {
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(Map.of("name", "Pear", "price", 1.0, "available", true))
+                .when()
+                .post("/api/products")
+                .then()
+                .statusCode(HttpStatus.FORBIDDEN.value());
+
+        assertEquals(3, productRepository.count());
+    }
+
+    @Test
+    void shouldPageProductsWithCursor() {
+        Response first = given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("sort", "price")
+                .queryParam("limit", 2)
+                .when()
+                .get("/api/products");
+        first.then()
+                .statusCode(200)
+                .body("name", Matchers.contains("Apple", "Bread"))
+                .body("[0].price", Matchers.equalTo(0.5f))
+                .body("[0].categoryName", Matchers.equalTo("Fruit"));
+        String cursor = first.getHeader(ProductController.NEXT_CURSOR_HEADER);
+        assertNotNull(cursor);
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("sort", "price")
+                .queryParam("limit", 2)
+                .queryParam("cursor", cursor)
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(200)
+                .header(ProductController.NEXT_CURSOR_HEADER, Matchers.nullValue())
+                .body("name", Matchers.contains("Cherry"))
+                .body("[0].price", Matchers.equalTo(12.99f));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("available", true)
+                .queryParam("minPrice", "1.00")
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.contains("Bread"));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("maxPrice", "1e30")
+                .when()
+                .get("/api/products")
+                .then()
+                .statusCode(400)
+                .body("message", Matchers.equalTo("maxPrice is out of range"));
+    }
+
+    @Test
+    void shouldServeProductsAndCategories() {
+        Long appleId = productRepository.findAll().stream()
+                .filter(product -> product.getName().equals("Apple"))
+                .findFirst().orElseThrow().getId();
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/products/{id}", appleId)
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.equalTo("Apple"))
+                .body("price", Matchers.equalTo(0.5f))
+                .body("category.name", Matchers.equalTo("Fruit"))
+                .body("category.parentId", Matchers.equalTo(food.getId().intValue()));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/products/{id}", 999999L)
+                .then()
+                .statusCode(HttpStatus.NOT_FOUND.value())
+                .body("message", Matchers.equalTo("Product not found"));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("includeDescendants", true)
+                .when()
+                .get("/api/products/by-category/{categoryId}", food.getId())
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.containsInAnyOrder("Bread", "Apple", "Cherry"));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/categories/{id}/subtree", food.getId())
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.contains("Food", "Fruit"));
+
+        given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/categories/byParent/{parentCategory}", "Food")
+                .then()
+                .statusCode(200)
+                .body("id", Matchers.contains(fruit.getId().intValue()));
+    }
+
+    @Test
+    void shouldStreamCatalogExport() {
+        String body = given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/products/export")
+                .then()
+                .statusCode(200)
+                .contentType("application/x-ndjson")
+                .extract()
+                .asString();
+
+        List<String> lines = body.lines().filter(line -> !line.isBlank()).toList();
+        assertEquals(3, lines.size());
+    }
+}
@@ -0,0 +1,210 @@
+package com.fdabrao.app.controller;
+
+import static io.restassured.RestAssured.given;
+
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.model.User;
+import com.fdabrao.app.persistence.CategoriesRepository;
+import com.fdabrao.app.persistence.ProductRepository;
+import com.fdabrao.app.persistence.ReplicaRoutingDataSource;
+import com.fdabrao.app.persistence.UserRepository;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Runs against two independent Postgres instances, a primary and a "replica" that does not replicate.
+ * Rows written only to one of them show which instance served a request.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ReplicaRoutingTest {
+
+    @LocalServerPort
+    private Integer port;
+
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            "postgres:16-alpine");
+
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>(
+            "postgres:16-alpine");
+
+    static JdbcTemplate replicaJdbc;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    CategoriesRepository categoriesRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    ReplicaRoutingDataSource routingDataSource;
+
+    private String writerToken;
+    private String readerToken;
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+        replica.start();
+        DriverManagerDataSource replicaDataSource = new DriverManagerDataSource(
+                replica.getJdbcUrl(), replica.getUsername(), replica.getPassword());
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(replicaDataSource);
+        replicaJdbc = new JdbcTemplate(replicaDataSource);
+    }
+
+    @AfterAll
+    static void afterAll() {
+        replica.stop();
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("app.datasource.replicas.urls", replica::getJdbcUrl);
+        registry.add("app.datasource.replicas.username", replica::getUsername);
+        registry.add("app.datasource.replicas.password", replica::getPassword);
+        // Replica checks are triggered by the tests themselves
+        registry.add("app.datasource.replicas.lag-check-interval-ms", () -> "3600000");
+        // The instances hold different rows at the same catalog version, so serialized lists must not be shared
+        registry.add("app.catalog.body-cache.max-bytes", () -> "0");
+    }
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.baseURI = "http://localhost:" + port;
+        productRepository.deleteAll();
+        categoriesRepository.deleteAll();
+        userRepository.deleteAll();
+        replicaJdbc.update("DELETE FROM product");
+        replicaJdbc.update("DELETE FROM category");
+        replicaJdbc.update("DELETE FROM app_user");
+
+        // Users exist on both instances, as they would with real replication
+        String passwordHash = passwordEncoder.encode("password123");
+        for (String username : new String[] {"writer", "reader"}) {
+            User user = new User(username, username + "@example.com", passwordHash, "Test", "User", "USER", true);
+            user.setCreatedAt(LocalDateTime.now());
+            userRepository.save(user);
+            replicaJdbc.update("INSERT INTO app_user (username, email, password_hash, role, active) "
+                    + "VALUES (?, ?, ?, 'USER', TRUE)", username, username + "@example.com", passwordHash);
+        }
+
+        Categories category = categoriesRepository.save(new Categories(null, "Primary category", "", null, true));
+        productRepository.save(new Product(null, "Primary product", "Only on the primary", 1000, true, category));
+        replicaJdbc.update("INSERT INTO product (name, description, price, available) "
+                + "VALUES ('Replica product', 'Only on the replica', 10.0, TRUE)");
+        routingDataSource.checkReplicas();
+
+        writerToken = getAuthToken("writer");
+        readerToken = getAuthToken("reader");
+    }
+
+    private String getAuthToken(String username) {
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put("username", username);
+        credentials.put("password", "password123");
+
+        Response response = given()
+                .contentType(ContentType.JSON)
+                .body(credentials)
+                .when()
+                .post("/api/auth/login");
+
+        response.then().statusCode(200);
+
+        return response.jsonPath().getString("token");
+    }
+
+    private Response listProducts(String token) {
+        return given()
+                .header("Authorization", "Bearer " + token)
+                .when()
+                .get("/api/products");
+    }
+
+    private void createProduct(String token, String name) {
+        Map<String, Object> product = new HashMap<>();
+        product.put("name", name);
+        product.put("description", "Written through the API");
+        product.put("price", 5.0);
+        product.put("available", true);
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + token)
+                .body(product)
+                .when()
+                .post("/api/products")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    void readOnlyRequestsShouldBeServedByReplica() {
+        listProducts(readerToken)
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.contains("Replica product"));
+    }
+
+    @Test
+    void writerShouldReadOwnWritesFromPrimary() {
+        createProduct(writerToken, "Fresh product");
+        // The replica is current again for everyone else
+        routingDataSource.checkReplicas();
+
+        listProducts(writerToken)
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.hasItems("Fresh product", "Primary product"));
+        listProducts(readerToken)
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.contains("Replica product"));
+    }
+
+    @Test
+    void catalogReadsShouldStayOnPrimaryUntilReplicasPassTheWrite() {
+        createProduct(writerToken, "Fresh product");
+
+        listProducts(readerToken)
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.hasItem("Fresh product"));
+
+        routingDataSource.checkReplicas();
+        listProducts(readerToken)
+                .then()
+                .statusCode(200)
+                .body("name", Matchers.contains("Replica product"));
+    }
+}
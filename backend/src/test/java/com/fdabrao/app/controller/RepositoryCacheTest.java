@@ -0,0 +1,475 @@
+package com.fdabrao.app.controller;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fdabrao.app.model.Categories;
+import com.fdabrao.app.model.Product;
+import com.fdabrao.app.model.User;
+import com.fdabrao.app.model.UserAccount;
+import com.fdabrao.app.persistence.CategoriesRepository;
+import com.fdabrao.app.persistence.ProductRepository;
+import com.fdabrao.app.persistence.UserRepository;
+import com.fdabrao.app.security.UserDenylist;
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * The repository cache with its shared tier on an in-process Redis-protocol server. Another node is played by
+ * writing to the database directly and publishing on the invalidation channel; a request answered without any
+ * SQL statement came from the cache. The same channel relays catalog changes to the node-local catalog views.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RepositoryCacheTest {
+
+    private static final String CHANNEL = "app:cache:invalidations";
+
+    @LocalServerPort
+    private Integer port;
+
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            "postgres:16-alpine");
+
+    static RedisServer redis = RedisServer.newRedisServer();
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    CategoriesRepository categoriesRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    RedisConnectionFactory redisConnectionFactory;
+
+    @Autowired
+    UserDenylist userDenylist;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<JsonNode> invalidations = new LinkedBlockingQueue<>();
+
+    private StringRedisTemplate redisTemplate;
+    private RedisMessageListenerContainer listener;
+    private Categories category;
+    private String userToken;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        postgres.start();
+        redis.start();
+    }
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        postgres.stop();
+        redis.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+        registry.add("app.cache.redis.url", () -> "redis://" + redis.getHost() + ":" + redis.getBindPort());
+        registry.add("app.catalog.snapshots.rebuild-delay-ms", () -> "3600000");
+        registry.add("security.denylist.refresh-interval-ms", () -> "3600000");
+        registry.add("security.last-login.flush-interval-ms", () -> "3600000");
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RestAssured.baseURI = "http://localhost:" + port;
+        productRepository.deleteAll();
+        categoriesRepository.deleteAll();
+        userRepository.deleteAll();
+
+        category = categoriesRepository.save(new Categories(null, "Dairy", "Milk and cheese", null, true));
+
+        User user = new User("cache_user", "cache_user@example.com", passwordEncoder.encode("password123"),
+                "Cache", "User", "USER", true);
+        user.setCreatedAt(LocalDateTime.now());
+        userRepository.save(user);
+        userToken = login("cache_user").jsonPath().getString("token");
+
+        redisTemplate = new StringRedisTemplate(redisConnectionFactory);
+        listener = new RedisMessageListenerContainer();
+        listener.setConnectionFactory(redisConnectionFactory);
+        listener.addMessageListener((message, pattern) -> {
+            try {
+                invalidations.add(objectMapper.readTree(message.getBody()));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }, new ChannelTopic(CHANNEL));
+        listener.afterPropertiesSet();
+        listener.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        listener.destroy();
+    }
+
+    private Response login(String username) {
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put("username", username);
+        credentials.put("password", "password123");
+        Response response = given()
+                .contentType(ContentType.JSON)
+                .body(credentials)
+                .when()
+                .post("/api/auth/login");
+        response.then().statusCode(200);
+        return response;
+    }
+
+    private Response getProduct(Long id) {
+        Response response = given()
+                .header("Authorization", "Bearer " + userToken)
+                .when()
+                .get("/api/products/{id}", id);
+        response.then().statusCode(200);
+        return response;
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private double sharedHits(String cache) {
+        return meterRegistry.get("cache.shared.gets").tag("cache", cache).tag("result", "hit").counter().count();
+    }
+
+    // What another node publishes after evicting an entry from the shared tier
+    private void publishFromOtherNode(String cache, String key) throws Exception {
+        Map<String, String> invalidation = new HashMap<>();
+        invalidation.put("node", "other-node");
+        invalidation.put("cache", cache);
+        invalidation.put("key", key);
+        redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(invalidation));
+    }
+
+    // What another node relays after committing a catalog change
+    private void publishCatalogChangeFromOtherNode(String entityType, Long id, Map<String, Object> entity)
+            throws Exception {
+        Map<String, Object> change = new HashMap<>();
+        change.put("node", "other-node");
+        change.put("entityType", entityType);
+        change.put("id", id);
+        change.put("changeType", "CREATED");
+        change.put("entity", entity);
+        redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(change));
+    }
+
+    // Waits until this node relays a change of the given entity
+    private JsonNode awaitCatalogChange(String entityType, Long id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            JsonNode change = invalidations.poll(100, TimeUnit.MILLISECONDS);
+            if (change != null
+                    && !"other-node".equals(change.path("node").asText())
+                    && entityType.equals(change.path("entityType").asText())
+                    && id == change.path("id").asLong()) {
+                return change;
+            }
+        }
+        throw new AssertionError("The change of " + entityType + " " + id + " was not relayed");
+    }
+
+    private Response getCategories(String etag) {
+        return given()
+                .header("Authorization", "Bearer " + userToken)
+                .header("If-None-Match", etag)
+                .when()
+                .get("/api/categories");
+    }
+
+    private Response search(String query) {
+        Response response = given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam("q", query)
+                .when()
+                .get("/api/products/search");
+        response.then().statusCode(200);
+        return response;
+    }
+
+    /**
+     * Waits until this node announces the eviction of {@code key} from {@code cache}, or of the whole cache when
+     * {@code key} is null
+     */
+    private void awaitInvalidation(String cache, String key) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            JsonNode invalidation = invalidations.poll(100, TimeUnit.MILLISECONDS);
+            if (invalidation != null
+                    && !"other-node".equals(invalidation.path("node").asText())
+                    && cache.equals(invalidation.path("cache").asText())
+                    && (key == null ? invalidation.get("key").isNull() : key.equals(invalidation.get("key").asText()))) {
+                return;
+            }
+        }
+        throw new AssertionError("The eviction of " + cache + " " + key + " was not announced");
+    }
+
+    @Test
+    void productByIdShouldBeCachedInBothTiersAndEvictedOnEveryNode() throws Exception {
+        Product product = productRepository.save(new Product(null, "Butter", "Salted", 350, true, category));
+        String sharedKey = "app:cache:products::" + product.getId();
+
+        getProduct(product.getId());
+        assertTrue(redisTemplate.hasKey(sharedKey), "The product should be kept in the shared tier");
+
+        statistics().clear();
+        getProduct(product.getId()).then().body("name", Matchers.equalTo("Butter"));
+        assertEquals(0, statistics().getPrepareStatementCount());
+
+        // Another node changed something under this key: the near copy goes, the shared one is used instead
+        double sharedHitsBefore = sharedHits("products");
+        publishFromOtherNode("products", product.getId().toString());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        statistics().clear();
+        while (sharedHits("products") == sharedHitsBefore && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            getProduct(product.getId());
+        }
+        assertTrue(sharedHits("products") > sharedHitsBefore, "The near copy should have been dropped");
+        assertEquals(0, statistics().getPrepareStatementCount());
+
+        // Another node wrote the row and evicted the shared entry; its message makes this node read it again
+        jdbcTemplate.update("UPDATE product SET name = 'Unsalted butter' WHERE id = ?", product.getId());
+        redisTemplate.delete(sharedKey);
+        publishFromOtherNode("products", product.getId().toString());
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String name = getProduct(product.getId()).jsonPath().getString("name");
+        while (!"Unsalted butter".equals(name) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            name = getProduct(product.getId()).jsonPath().getString("name");
+        }
+        assertEquals("Unsalted butter", name);
+
+        // A write on this node evicts both tiers and tells the other nodes
+        Map<String, Object> update = new HashMap<>();
+        update.put("name", "Cultured butter");
+        update.put("description", "Salted");
+        update.put("price", 4.2);
+        update.put("available", true);
+        update.put("category", Map.of("id", category.getId()));
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(update)
+                .when()
+                .put("/api/products/{id}", product.getId())
+                .then()
+                .statusCode(200);
+        awaitInvalidation("products", product.getId().toString());
+        assertFalse(redisTemplate.hasKey(sharedKey));
+        getProduct(product.getId())
+                .then()
+                .body("name", Matchers.equalTo("Cultured butter"))
+                .body("price", Matchers.equalTo(4.2f));
+    }
+
+    @Test
+    void categoryWriteShouldClearCachedProducts() throws Exception {
+        Product product = productRepository.save(new Product(null, "Brie", "Soft cheese", 600, true, category));
+        getProduct(product.getId()).then().body("category.name", Matchers.equalTo("Dairy"));
+
+        Categories renamed = new Categories(category.getId(), "Cheese", "Milk and cheese", null, true);
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(renamed)
+                .when()
+                .put("/api/categories/{id}", category.getId())
+                .then()
+                .statusCode(200);
+
+        // The cached product embeds its category, so a category change clears the whole cache
+        awaitInvalidation("categories", null);
+        awaitInvalidation("products", null);
+        getProduct(product.getId()).then().body("category.name", Matchers.equalTo("Cheese"));
+        assertTrue(categoriesRepository.findById(category.getId()).isPresent());
+
+        statistics().clear();
+        assertEquals("Cheese", categoriesRepository.findById(category.getId()).orElseThrow().getName());
+        assertEquals(0, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    void catalogChangesShouldReachTheCatalogViewsOfEveryNode() throws Exception {
+        // A write on this node is relayed with the written row
+        Product product = productRepository.save(new Product(null, "Gouda", "Aged cheese", 800, true, category));
+        JsonNode relayed = awaitCatalogChange("PRODUCT", product.getId());
+        assertEquals("CREATED", relayed.get("changeType").asText());
+        assertEquals("Gouda", relayed.get("entity").get("name").asText());
+
+        Response categories = getCategories("\"none\"");
+        categories.then().statusCode(200);
+        String etag = categories.header("ETag");
+        getCategories(etag).then().statusCode(304);
+
+        // Another node created a category and a product in it
+        Long bakeryId = jdbcTemplate.queryForObject(
+                "INSERT INTO category (name, description, active) VALUES ('Bakery', 'Bread', true) RETURNING id",
+                Long.class);
+        Long loafId = jdbcTemplate.queryForObject(
+                "INSERT INTO product (name, description, price, available, category_id) "
+                        + "VALUES ('Rye loaf', 'Dark bread', 3.50, true, ?) RETURNING id",
+                Long.class, bakeryId);
+        Map<String, Object> bakery = Map.of("id", bakeryId, "name", "Bakery", "description", "Bread", "active", true);
+        publishCatalogChangeFromOtherNode("CATEGORY", bakeryId, bakery);
+        publishCatalogChangeFromOtherNode("PRODUCT", loafId, Map.of("id", loafId, "name", "Rye loaf",
+                "description", "Dark bread", "price", 3.5, "available", true, "category", bakery));
+
+        // The catalog version moves on, so the old list is no longer confirmed, and the new rows are searchable
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        categories = getCategories(etag);
+        while (categories.statusCode() == 304 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            categories = getCategories(etag);
+        }
+        categories.then().statusCode(200).body("name", Matchers.hasItem("Bakery"));
+        Response hits = search("rye");
+        while (hits.jsonPath().getList(".").isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            hits = search("rye");
+        }
+        hits.then()
+                .body(".", Matchers.hasSize(1))
+                .body("[0].name", Matchers.equalTo("Rye loaf"))
+                .body("[0].categoryName", Matchers.equalTo("Bakery"));
+
+        // Writes on this node see the category
+        Map<String, Object> newProduct = new HashMap<>();
+        newProduct.put("name", "Baguette");
+        newProduct.put("description", "White bread");
+        newProduct.put("price", 1.2);
+        newProduct.put("available", true);
+        newProduct.put("category", Map.of("id", bakeryId));
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(newProduct)
+                .when()
+                .post("/api/products")
+                .then()
+                .statusCode(200)
+                .body("category.name", Matchers.equalTo("Bakery"));
+
+        // A name taken by a change this node has not heard of yet is still refused as a bad request
+        jdbcTemplate.update("INSERT INTO category (name, description, active) VALUES ('Pastry', 'Sweet', true)");
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .body(new Categories(null, "Pastry", "Sweet", null, true))
+                .when()
+                .post("/api/categories")
+                .then()
+                .statusCode(400)
+                .body("message", Matchers.equalTo("Category name already exists"));
+    }
+
+    @Test
+    void userAccountsShouldBeCachedWithoutTheirPasswordHash() throws Exception {
+        Map<String, Object> newUser = new HashMap<>();
+        newUser.put("username", "registered");
+        newUser.put("email", "registered@example.com");
+        newUser.put("passwordHash", "password123");
+        newUser.put("firstName", "New");
+        newUser.put("lastName", "User");
+        given()
+                .contentType(ContentType.JSON)
+                .body(newUser)
+                .when()
+                .post("/api/auth/register")
+                .then()
+                .statusCode(201);
+        awaitInvalidation("users", "registered");
+
+        UserAccount account = userRepository.findAccountByUsername("registered").orElseThrow();
+        assertTrue(account.active());
+        statistics().clear();
+        assertEquals(account, userRepository.findAccountByUsername("registered").orElseThrow());
+        assertEquals(0, statistics().getPrepareStatementCount());
+
+        // The shared tier holds only the projection
+        String cached = redisTemplate.opsForValue().get("app:cache:users::registered");
+        assertNotNull(cached);
+        assertFalse(cached.contains("passwordHash"), cached);
+        assertFalse(cached.contains("registered@example.com"), cached);
+
+        // Logins read the hash from the database every time
+        statistics().clear();
+        login("registered");
+        assertNotEquals(0, statistics().getPrepareStatementCount());
+
+        // Saving the user evicts the account
+        User user = userRepository.findByUsername("registered").orElseThrow();
+        user.setFirstName("Renamed");
+        userRepository.save(user);
+        awaitInvalidation("users", "registered");
+
+        // A deactivation made elsewhere clears the cache once the denylist sees it
+        assertTrue(userRepository.findAccountByUsername("registered").orElseThrow().active());
+        jdbcTemplate.update("UPDATE app_user SET active = false WHERE username = 'registered'");
+        userDenylist.refresh();
+        awaitInvalidation("users", null);
+        assertFalse(userRepository.findAccountByUsername("registered").orElseThrow().active());
+        assertNull(userRepository.findAccountByUsername("nobody").orElse(null));
+    }
+}
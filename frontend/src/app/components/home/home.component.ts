@@ -22,6 +22,7 @@ export class HomeComponent implements OnInit {
   lastName: string = '';
   products: Product[] = [];
   filteredProducts: Product[] = [];
+  nextCursor: string | null = null;
   categories: Category[] = [];
   isLoading: boolean = false;
   errorMessage: string = '';
@@ -31,6 +32,8 @@ export class HomeComponent implements OnInit {
   searchQuery: string = '';
   sortField: string = 'name';
   sortDirection: string = 'asc';
+  readonly pageSize: number = 50;
+  private searchTimer?: ReturnType<typeof setTimeout>;
   
   // For edit/create form
   editMode: boolean = false;
@@ -68,13 +71,21 @@ export class HomeComponent implements OnInit {
     this.loadCategories();
   }
   
-  loadProducts(): void {
+  loadProducts(append: boolean = false): void {
     this.isLoading = true;
     this.errorMessage = '';
     
-    this.productService.getProducts().subscribe({
-      next: (data) => {
-        this.products = data;
+    // Name and price are sorted by the server; other columns are sorted locally over the loaded pages
+    const serverSort = this.isServerSortField(this.sortField) ? this.sortField : 'name';
+    this.productService.getProducts({
+      sort: serverSort as 'name' | 'price',
+      direction: this.isServerSortField(this.sortField) ? this.sortDirection as 'asc' | 'desc' : 'asc',
+      cursor: append && this.nextCursor ? this.nextCursor : undefined,
+      limit: this.pageSize
+    }).subscribe({
+      next: (page) => {
+        this.products = append ? [...this.products, ...page.products] : page.products;
+        this.nextCursor = page.nextCursor;
         this.applyFiltersAndSort();
         this.isLoading = false;
       },
@@ -90,6 +101,16 @@ export class HomeComponent implements OnInit {
     });
   }
 
+  loadMoreProducts(): void {
+    if (this.nextCursor) {
+      this.loadProducts(true);
+    }
+  }
+
+  isServerSortField(field: string): boolean {
+    return field === 'name' || field === 'price';
+  }
+
   loadCategories(): void {
     this.isLoading = true;
     this.errorMessage = '';
@@ -241,18 +262,15 @@ export class HomeComponent implements OnInit {
   }
   
   filterProducts(): Product[] {
-    if (!this.searchQuery.trim()) {
-      return [...this.products]; // Return copy of all products if no search query
-    }
-    
-    const query = this.searchQuery.toLowerCase().trim();
-    return this.products.filter(product => 
-      product.name.toLowerCase().includes(query) || 
-      (product.description && product.description.toLowerCase().includes(query))
-    );
+    // Search results already come filtered and ranked from the server
+    return [...this.products];
   }
   
   sortProducts(): void {
+    if (this.isServerSortField(this.sortField)) {
+      return; // Keep the order the server returned
+    }
+    
     this.filteredProducts.sort((a, b) => {
       let valueA: any;
       let valueB: any;
@@ -294,7 +312,29 @@ export class HomeComponent implements OnInit {
   }
   
   onSearch(): void {
-    this.applyFiltersAndSort();
+    // Debounce keystrokes, then let the server search the whole catalog
+    clearTimeout(this.searchTimer);
+    this.searchTimer = setTimeout(() => {
+      const query = this.searchQuery.trim();
+      if (!query) {
+        this.loadProducts();
+        return;
+      }
+      this.isLoading = true;
+      this.productService.searchProducts(query, this.pageSize).subscribe({
+        next: (products) => {
+          this.products = products;
+          this.nextCursor = null;
+          this.filteredProducts = [...products];
+          this.isLoading = false;
+        },
+        error: (error) => {
+          this.errorMessage = 'Failed to search products. Please try again.';
+          this.isLoading = false;
+          console.error('Error searching products:', error);
+        }
+      });
+    }, 250);
   }
   
   setSortField(field: string): void {
@@ -304,6 +344,11 @@ export class HomeComponent implements OnInit {
       this.sortField = field;
       this.sortDirection = 'asc';
     }
-    this.applyFiltersAndSort();
+    
+    if (this.isServerSortField(field)) {
+      this.loadProducts();
+    } else {
+      this.applyFiltersAndSort();
+    }
   }
 } 
\ No newline at end of file
@@ -7,4 +7,34 @@ export interface Product {
   price: number;
   available: boolean;
   category?: Category;
-} 
\ No newline at end of file
+}
+
+export interface ProductSummary {
+  id: number;
+  name: string;
+  description: string;
+  price: number;
+  available: boolean;
+  categoryId?: number;
+  categoryName?: string;
+}
+
+export interface ProductQuery {
+  categoryId?: number;
+  available?: boolean;
+  minPrice?: number;
+  maxPrice?: number;
+  sort?: 'name' | 'price';
+  direction?: 'asc' | 'desc';
+  cursor?: string;
+  limit?: number;
+}
+
+export interface ProductPage {
+  products: Product[];
+  nextCursor: string | null;
+}
+
+export interface ProductSearchHit extends ProductSummary {
+  score: number;
+}
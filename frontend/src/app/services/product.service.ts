@@ -1,8 +1,8 @@
 import { Injectable } from '@angular/core';
-import { HttpClient, HttpErrorResponse } from '@angular/common/http';
+import { HttpClient, HttpErrorResponse, HttpParams } from '@angular/common/http';
 import { Observable, throwError } from 'rxjs';
-import { catchError } from 'rxjs/operators';
-import { Product } from '../models/product.model';
+import { catchError, map } from 'rxjs/operators';
+import { Product, ProductPage, ProductQuery, ProductSearchHit, ProductSummary } from '../models/product.model';
 import { Router } from '@angular/router';
 import { AuthService } from './auth.service';
 import { environment } from '../../environments/environment';
@@ -19,10 +19,31 @@ export class ProductService {
     private authService: AuthService
   ) { }
 
-  // Get all products
-  getProducts(): Observable<Product[]> {
-    return this.http.get<Product[]>(this.apiUrl)
+  // Get one page of products; the next page cursor comes back in the X-Next-Cursor header
+  getProducts(query: ProductQuery = {}): Observable<ProductPage> {
+    let params = new HttpParams();
+    Object.entries(query).forEach(([key, value]) => {
+      if (value !== undefined && value !== null && value !== '') {
+        params = params.set(key, String(value));
+      }
+    });
+
+    return this.http.get<ProductSummary[]>(this.apiUrl, { params, observe: 'response' })
+      .pipe(
+        map(response => ({
+          products: (response.body || []).map(summary => this.toProduct(summary)),
+          nextCursor: response.headers.get('X-Next-Cursor')
+        })),
+        catchError(error => this.handleError(error))
+      );
+  }
+
+  // Full-text search over names and descriptions, best matches first
+  searchProducts(query: string, limit: number = 50): Observable<Product[]> {
+    const params = new HttpParams().set('q', query).set('limit', String(limit));
+    return this.http.get<ProductSearchHit[]>(`${this.apiUrl}/search`, { params })
       .pipe(
+        map(hits => hits.map(hit => this.toProduct(hit))),
         catchError(error => this.handleError(error))
       );
   }
@@ -59,6 +80,18 @@ export class ProductService {
       );
   }
 
+  // List endpoints return flat summaries; rebuild the nested category the views expect
+  private toProduct(summary: ProductSummary): Product {
+    return {
+      id: summary.id,
+      name: summary.name,
+      description: summary.description,
+      price: summary.price,
+      available: summary.available,
+      category: summary.categoryId ? { id: summary.categoryId, name: summary.categoryName || '', active: true } : undefined
+    };
+  }
+
   // Error handling
   private handleError(error: HttpErrorResponse) {
     if (error.status === 401) {
@@ -36,7 +36,7 @@ goto checkPostgres
 REM Step 2: Start the backend
 echo.
 echo STEP 2: Starting Backend (Spring Boot)...
-start "Backend" cmd /c "cd backend && .\mvnw spring-boot:run"
+start "Backend" cmd /c "cd backend && .\mvnw spring-boot:run -Dspring-boot.run.profiles=dev"
 
 REM Wait for the backend to be ready (typically runs on port 8080)
 echo Waiting for Backend to start on port 8080...
@@ -54,7 +54,7 @@ sleep 5
 # Step 2: Start the backend
 echo -e "\n${YELLOW}STEP 2: Starting Backend (Spring Boot)...${NC}"
 cd backend
-./mvnw spring-boot:run &
+./mvnw spring-boot:run -Dspring-boot.run.profiles=dev &
 BACKEND_PID=$!
 cd ..
 